@@ -1,32 +1,192 @@
 package stream;
 
+import stream.batch.BatchRunner;
+import stream.batch.BatchStats;
+import stream.bus.BufferPool;
 import stream.bus.SampleQueue;
-import stream.fft.FFTService;
+import stream.bus.WaitStrategy;
+import stream.cache.DetectionCache;
+import stream.fft.DetectionEngine;
+import stream.fft.DetectionEngineType;
+import stream.fft.Window;
+import stream.metrics.Metrics;
+import stream.metrics.MetricsReporter;
+import stream.model.PitchTable;
+import stream.model.Tuning;
+import stream.prepare.LiveWorker;
 import stream.prepare.PrepareWorker;
+import stream.reader.Ingestion;
+import stream.reader.LiveReader;
+import stream.reader.ReSampler;
 import stream.reader.WavReader;
+import stream.sink.DetectionSink;
+import stream.sink.SinkFormat;
+
+import javax.management.JMException;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 public class App {
 
     public static final int BUFFER_SIZE = 4096;
     //public static final int BUFFER_SIZE = 16384;
+    // a short queue, chunks waiting in it are latency
+    private static final int LIVE_QUEUE_CAPACITY = 32;
+
+    public static void main(final String[] args) throws InterruptedException, IOException, LineUnavailableException, JMException {
+        final Options options = new Options(args);
+        // stage timings and counters over JMX, printed every so many seconds and on exit
+        final int metrics = options.getInt("metrics", 0);
+        if (metrics > 0) {
+            Metrics.enable();
+            Metrics.registerMBeans();
+            final MetricsReporter metricsReporter = new MetricsReporter(System.err, metrics, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(metricsReporter::close));
+        }
+        // pitch of A4 and tuning the ranges are generated from, before any reader or engine is built
+        PitchTable.setCurrent(new PitchTable(options.getDouble("reference", PitchTable.DEFAULT_REFERENCE),
+                options.getEnum("tuning", Tuning.EQUAL), BUFFER_SIZE, PitchTable.DEFAULT_BASE_INDEX));
+        final DetectionEngineType engineType = options.getEnum("engine", DetectionEngineType.FFT);
+        final ReSampler.Quality quality = options.getEnum("quality", ReSampler.Quality.MEDIUM);
+        final int parallelism = options.getInt("parallelism", Runtime.getRuntime().availableProcessors());
+        // a WAV file on disk, or one of the bundled resources: B_string.wav, a.wav, arpeggios.wav, g_tdd_120_01.wav
+        final String fileName = options.get("file", "B_string.wav");
+        // a chunk every hop samples, chunks overlap when it is below BUFFER_SIZE
+        final int hop = options.getInt("hop", engineType.defaultHop());
+        final Window window = options.getEnum("window", Window.RECTANGULAR);
+        final Supplier<DetectionEngine> engineFactory = () -> engineType.create(window);
+        final SinkFormat format = options.getEnum("format", SinkFormat.TEXT);
+        final double powerThreshold = options.getDouble("threshold", PrepareWorker.POWER_THRESHOLD);
+        // threads of the batch and live readers, virtual ones when the runtime has them
+        final Ingestion ingestion = options.getEnum("ingest", Ingestion.VIRTUAL);
+        // a directory of WAV files or a glob such as recordings/**/*.wav, one output per file
+        final String batch = options.get("batch", null);
+        if (batch != null) {
+            // outputs of an earlier batch are only kept if they come from the same engine and pitch table
+            final List<?> engineSettings = List.of(engineType, window, BUFFER_SIZE, PitchTable.current().getReference(),
+                    PitchTable.current().getTuning());
+            batch(options, batch, engineType, engineFactory, engineSettings, quality, parallelism, hop, powerThreshold, format, ingestion);
+            return;
+        }
+        // detections go to the standard output unless a file is given
+        final String output = options.get("output", null);
+        final OutputStream outputStream = output != null ? Files.newOutputStream(Paths.get(output)) : System.out;
+        // live capture instead of a file: "line" for the default capture line, "stdin" for raw PCM on the standard input
+        final String live = options.get("live", null);
+        if (live != null) {
+            live(options, live, engineType, engineFactory, quality, parallelism, hop, powerThreshold, format.create(outputStream),
+                    ingestion);
+            return;
+        }
 
-    public static void main(final String[] args) {
-        //final String fileName = "g_tdd_120_01.wav";
-        final String fileName = "B_string.wav";
-        //final String fileName = "a.wav";
-        //final String fileName = "arpeggios.wav";
+        // detections before thresholding are kept there, a new threshold on the same file skips the analysis
+        final String cache = options.get("cache", null);
+        try (final DetectionSink detectionSink = format.create(outputStream)) {
+            if (cache == null || !engineType.isCacheable()) {
+                analyze(fileName, engineType, engineFactory, quality, parallelism, hop, powerThreshold, detectionSink);
+                return;
+            }
+            final DetectionCache detectionCache = new DetectionCache(Paths.get(cache), options.getInt("cache-size", 256) * (1L << 20));
+            final String key = DetectionCache.key(fileName, List.of(engineType, window, quality, hop, BUFFER_SIZE,
+                    PitchTable.current().getReference(), PitchTable.current().getTuning()));
+            if (detectionCache.replay(key, powerThreshold, detectionSink)) {
+                return;
+            }
+            try (final DetectionCache.Writer writer = detectionCache.writer(key, powerThreshold, detectionSink)) {
+                // everything is recorded, the writer passes on what is above the threshold
+                final WavReader wavReader = analyze(fileName, engineType, engineFactory, quality, parallelism, hop,
+                        Double.NEGATIVE_INFINITY, writer);
+                if (wavReader.getFailure() == null) {
+                    writer.commit();
+                }
+            }
+        }
+
+        /*final FFTService fftService = new FFTService();
+        final Thread fftThread = new Thread(fftService);
+        fftThread.start();*/
+    }
 
+    private static WavReader analyze(final String fileName, final DetectionEngineType engineType,
+                                     final Supplier<DetectionEngine> engineFactory, final ReSampler.Quality quality, final int parallelism,
+                                     final int hop, final double powerThreshold, final DetectionSink detectionSink)
+            throws InterruptedException {
         final SampleQueue sampleQueue = new SampleQueue();
-        final WavReader wavReader = new WavReader(fileName, sampleQueue);
-        wavReader.run();
+        // enough arrays for a full queue plus the chunks being written and analyzed
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(hop), 2 * sampleQueue.capacity());
+        final WavReader wavReader = new WavReader(fileName, sampleQueue, quality, bufferPool, hop, null, true, engineType.isResampled());
+        // the queue is bounded, the worker drains it while the reader fills it
+        final Thread wavReaderThread = new Thread(wavReader);
+        wavReaderThread.start();
 
-        final FFTService fftService = new FFTService();
-        final PrepareWorker prepareWorker = new PrepareWorker(fftService, sampleQueue);
+        final PrepareWorker prepareWorker = new PrepareWorker(engineFactory, sampleQueue, parallelism, detectionSink, powerThreshold);
         final Thread prepareWorkerThread = new Thread(prepareWorker);
         prepareWorkerThread.start();
+        prepareWorkerThread.join();
+        wavReaderThread.join();
+        if (bufferPool.getOutstanding() != 0) {
+            System.err.println("Leaked sample buffers: " + bufferPool);
+        }
+        return wavReader;
+    }
 
-        /*final FFTService fftService = new FFTService();
-        final Thread fftThread = new Thread(fftService);
-        fftThread.start();*/
+    private static void batch(final Options options, final String batch, final DetectionEngineType engineType,
+                              final Supplier<DetectionEngine> engineFactory, final List<?> engineSettings,
+                              final ReSampler.Quality quality, final int parallelism,
+                              final int hop, final double powerThreshold, final SinkFormat format, final Ingestion ingestion)
+            throws IOException, InterruptedException {
+        final Path outputDirectory = Paths.get(options.get("output", "detections"));
+        // files read at once, each one also resamples its ranges in parallel
+        final int concurrentFiles = options.getInt("files", Math.max(1, parallelism / 2));
+        final Path base = Files.isDirectory(Paths.get(batch)) ? Paths.get(batch) : BatchRunner.globBase(batch);
+        final BatchRunner batchRunner = new BatchRunner(engineFactory, engineType.isResampled(), quality, hop, format, outputDirectory,
+                concurrentFiles, ingestion, powerThreshold, engineSettings);
+        final BatchStats batchStats = batchRunner.run(base, BatchRunner.listFiles(batch));
+        System.err.println(batchStats);
+        if (batchRunner.getBufferPool().getOutstanding() != 0) {
+            System.err.println("Leaked sample buffers: " + batchRunner.getBufferPool());
+        }
+    }
+
+    private static void live(final Options options, final String live, final DetectionEngineType engineType,
+                             final Supplier<DetectionEngine> engineFactory, final ReSampler.Quality quality, final int parallelism,
+                             final int hop, final double powerThreshold, final DetectionSink detectionSink,
+                             final Ingestion ingestion)
+            throws InterruptedException, LineUnavailableException {
+        // 16 bit signed little endian PCM
+        final AudioFormat format = new AudioFormat(options.getInt("rate", 44100), 16, options.getInt("channels", 1), true, false);
+        final long maxLatency = TimeUnit.MILLISECONDS.toNanos(options.getInt("latency", 250));
+        final InputStream inputStream = "line".equals(live) ? LiveReader.openLine(format) : System.in;
+
+        final SampleQueue sampleQueue = new SampleQueue(LIVE_QUEUE_CAPACITY, WaitStrategy.blocking());
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(hop), 2 * sampleQueue.capacity());
+        final LiveReader liveReader = new LiveReader(inputStream, format, sampleQueue, quality, bufferPool, hop, engineType.isResampled());
+        // detections come from every worker and are shown as soon as they are found
+        final LiveWorker liveWorker = new LiveWorker(engineFactory, sampleQueue, parallelism, maxLatency, powerThreshold, detection -> {
+            synchronized (detectionSink) {
+                detectionSink.accept(detection);
+                detectionSink.flush();
+            }
+        });
+        // a capture line only ends with the process
+        Runtime.getRuntime().addShutdownHook(new Thread(() ->
+                System.err.println("latency " + liveWorker.getLatency() + ", stale " + liveWorker.getStaleChunks()
+                        + ", dropped " + liveReader.getDroppedChunks())));
+
+        final Thread liveReaderThread = ingestion.threadFactory("live-reader").newThread(liveReader);
+        liveReaderThread.start();
+        try (detectionSink) {
+            liveWorker.run();
+            liveReaderThread.join();
+        }
     }
 }
@@ -0,0 +1,46 @@
+package stream;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command line options of the form {@code --name=value}.
+ */
+public class Options {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    public Options(final String[] args) {
+        for (final String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            final int separator = arg.indexOf('=');
+            if (separator < 0) {
+                this.values.put(arg.substring(2), "true");
+            } else {
+                this.values.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+    }
+
+    public String get(final String name, final String defaultValue) {
+        return this.values.getOrDefault(name, defaultValue);
+    }
+
+    public int getInt(final String name, final int defaultValue) {
+        final String value = this.values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public double getDouble(final String name, final double defaultValue) {
+        final String value = this.values.get(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+
+    public <E extends Enum<E>> E getEnum(final String name, final E defaultValue) {
+        final String value = this.values.get(name);
+        return value != null ? Enum.valueOf(defaultValue.getDeclaringClass(), value.toUpperCase(Locale.ROOT)) : defaultValue;
+    }
+}
@@ -0,0 +1,238 @@
+package stream.batch;
+
+import stream.bus.BufferPool;
+import stream.bus.SampleQueue;
+import stream.fft.DetectionEngine;
+import stream.model.MusicalRange;
+import stream.prepare.PrepareWorker;
+import stream.reader.Ingestion;
+import stream.reader.ReSampler;
+import stream.reader.WavReader;
+import stream.sink.DetectionSink;
+import stream.sink.SinkFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs the pipeline over many files, several at a time, each one written to
+ * its own output file in the output directory.
+ * <p>
+ * What does not depend on the file is shared for the whole batch: the buffer
+ * pool, the threads resampling the ranges, and the detection engines with their
+ * FFT plans and tables, one per consumer thread. A file only costs its queue
+ * and its reader. Readers run on the threads of the {@link Ingestion}, one
+ * per file with virtual threads, at most concurrentFiles of them reading at
+ * once, and feed a pool of concurrentFiles consumers. Outputs are written to a {@code .part} file renamed once
+ * complete, and recorded in the {@link Manifest} so a new run skips them.
+ */
+public class BatchRunner {
+
+    private final SinkFormat format;
+    private final Path outputDirectory;
+    private final int concurrentFiles;
+    private final ReSampler.Quality quality;
+    private final int hop;
+    private final boolean resampled;
+    private final Ingestion ingestion;
+    private final double powerThreshold;
+    private final String settings;
+    private final BufferPool bufferPool;
+    private final ThreadLocal<DetectionEngine> detectionEngines;
+
+    public BatchRunner(final Supplier<DetectionEngine> detectionEngineFactory, final ReSampler.Quality quality, final int hop,
+                       final SinkFormat format, final Path outputDirectory, final int concurrentFiles) {
+        this(detectionEngineFactory, true, quality, hop, format, outputDirectory, concurrentFiles);
+    }
+
+    // resampled is false for engines working on the chunks at the source rate
+    public BatchRunner(final Supplier<DetectionEngine> detectionEngineFactory, final boolean resampled, final ReSampler.Quality quality,
+                       final int hop, final SinkFormat format, final Path outputDirectory, final int concurrentFiles) {
+        this(detectionEngineFactory, resampled, quality, hop, format, outputDirectory, concurrentFiles, Ingestion.PLATFORM);
+    }
+
+    public BatchRunner(final Supplier<DetectionEngine> detectionEngineFactory, final boolean resampled, final ReSampler.Quality quality,
+                       final int hop, final SinkFormat format, final Path outputDirectory, final int concurrentFiles,
+                       final Ingestion ingestion) {
+        this(detectionEngineFactory, resampled, quality, hop, format, outputDirectory, concurrentFiles, ingestion,
+                PrepareWorker.POWER_THRESHOLD);
+    }
+
+    public BatchRunner(final Supplier<DetectionEngine> detectionEngineFactory, final boolean resampled, final ReSampler.Quality quality,
+                       final int hop, final SinkFormat format, final Path outputDirectory, final int concurrentFiles,
+                       final Ingestion ingestion, final double powerThreshold) {
+        this(detectionEngineFactory, resampled, quality, hop, format, outputDirectory, concurrentFiles, ingestion, powerThreshold,
+                List.of());
+    }
+
+    // engineSettings describe the engines of detectionEngineFactory, a change of them or of the other arguments processes files again
+    public BatchRunner(final Supplier<DetectionEngine> detectionEngineFactory, final boolean resampled, final ReSampler.Quality quality,
+                       final int hop, final SinkFormat format, final Path outputDirectory, final int concurrentFiles,
+                       final Ingestion ingestion, final double powerThreshold, final List<?> engineSettings) {
+        if (concurrentFiles < 1) {
+            throw new IllegalArgumentException("concurrentFiles must be at least 1");
+        }
+        this.format = format;
+        this.outputDirectory = outputDirectory;
+        this.concurrentFiles = concurrentFiles;
+        this.quality = quality;
+        this.hop = hop;
+        this.resampled = resampled;
+        this.ingestion = ingestion;
+        this.powerThreshold = powerThreshold;
+        final List<Object> settings = new ArrayList<>(engineSettings);
+        settings.addAll(List.of(resampled, quality, hop, format, powerThreshold));
+        this.settings = settings.toString();
+        // a full queue per file plus the chunks being written and analyzed
+        this.bufferPool = new BufferPool(WavReader.bufferSize(hop), 2 * concurrentFiles * SampleQueue.DEFAULT_CAPACITY);
+        this.detectionEngines = ThreadLocal.withInitial(detectionEngineFactory);
+    }
+
+    // WAV files under a directory, or matching a glob such as recordings/**/*.wav, in name order
+    public static List<Path> listFiles(final String pattern) throws IOException {
+        final Path path = Paths.get(pattern);
+        if (Files.isDirectory(path)) {
+            return walk(path, p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".wav"));
+        }
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        return walk(globBase(pattern), matcher);
+    }
+
+    // deepest directory of the pattern without wildcards
+    public static Path globBase(final String pattern) {
+        final int wildcard = indexOfWildcard(pattern);
+        final String prefix = pattern.substring(0, wildcard);
+        final int separator = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+        return separator < 0 ? Paths.get("") : Paths.get(prefix.substring(0, separator + 1));
+    }
+
+    private static int indexOfWildcard(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if ("*?[{".indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+
+    private static List<Path> walk(final Path base, final PathMatcher matcher) throws IOException {
+        final Path start = base.toString().isEmpty() ? Paths.get(".") : base;
+        try (final Stream<Path> paths = Files.walk(start)) {
+            return paths.filter(Files::isRegularFile)
+                    .map(p -> base.toString().isEmpty() ? start.relativize(p) : p)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public BufferPool getBufferPool() {
+        return this.bufferPool;
+    }
+
+    // outputs are named after the path of each file relative to base
+    public BatchStats run(final Path base, final List<Path> files) throws IOException, InterruptedException {
+        Files.createDirectories(this.outputDirectory);
+        final BatchStats batchStats = new BatchStats();
+        final ExecutorService fileExecutor = this.ingestion.executor("batch-reader", this.concurrentFiles);
+        // the buffer pool holds the queues of concurrentFiles files
+        final Semaphore reading = new Semaphore(this.concurrentFiles);
+        final ExecutorService consumerExecutor = Executors.newFixedThreadPool(this.concurrentFiles);
+        final ExecutorService rangeExecutor = Executors.newFixedThreadPool(
+                Math.min(MusicalRange.values().length, Runtime.getRuntime().availableProcessors()));
+        try (final Manifest manifest = Manifest.open(this.outputDirectory.resolve(Manifest.FILE_NAME), this.settings)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final Path file : files) {
+                if (manifest.isDone(file)) {
+                    batchStats.skipped();
+                    continue;
+                }
+                final Path target = this.target(base, file);
+                futures.add(fileExecutor.submit(() -> {
+                    reading.acquire();
+                    try {
+                        return this.process(file, target, manifest, batchStats, consumerExecutor, rangeExecutor);
+                    } finally {
+                        reading.release();
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            fileExecutor.shutdown();
+            consumerExecutor.shutdown();
+            rangeExecutor.shutdown();
+        }
+        batchStats.finish();
+        return batchStats;
+    }
+
+    private Path target(final Path base, final Path file) {
+        final Path relative = base.toAbsolutePath().normalize().relativize(file.toAbsolutePath().normalize());
+        final String name = relative.toString();
+        final int dot = name.lastIndexOf('.');
+        return this.outputDirectory.resolve((dot > 0 ? name.substring(0, dot) : name) + '.' + this.format.getExtension());
+    }
+
+    private Void process(final Path file, final Path target, final Manifest manifest, final BatchStats batchStats,
+                         final ExecutorService consumerExecutor, final ExecutorService rangeExecutor) throws Exception {
+        final long start = System.nanoTime();
+        final SampleQueue<Object> sampleQueue = new SampleQueue<>();
+        final WavReader wavReader = new WavReader(file.toString(), sampleQueue, this.quality, this.bufferPool, this.hop, rangeExecutor,
+                false, this.resampled);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        final Path part = target.resolveSibling(target.getFileName() + ".part");
+        final long[] detections = new long[1];
+        try (final OutputStream outputStream = Files.newOutputStream(part);
+             final DetectionSink detectionSink = this.format.create(outputStream)) {
+            // the consumer thread keeps its engine from one file to the next
+            final DetectionSink counted = detection -> {
+                detections[0]++;
+                detectionSink.accept(detection);
+            };
+            final Future<?> consumer = consumerExecutor.submit(() -> {
+                new PrepareWorker<>(this.detectionEngines::get, sampleQueue, 1, counted, this.powerThreshold).process(counted);
+                return null;
+            });
+            wavReader.run();
+            consumer.get();
+        }
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (wavReader.getFailure() != null) {
+            Files.deleteIfExists(part);
+            manifest.failed(file, millis);
+            batchStats.failed();
+            System.err.println(file + ": " + wavReader.getFailure());
+            return null;
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        manifest.done(file, detections[0], millis);
+        batchStats.processed(wavReader.getDuration(), detections[0]);
+        System.err.println(String.format(Locale.ROOT, "%s: %.1f s of audio, %d detections in %d ms (%.1fx real time)", file,
+                wavReader.getDuration(), detections[0], millis, wavReader.getDuration() * 1000 / Math.max(1, millis)));
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package stream.batch;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate figures of a batch, updated by the file tasks as they complete.
+ */
+public class BatchStats {
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder detections = new LongAdder();
+    private final DoubleAdder audioSeconds = new DoubleAdder();
+    private final long start = System.nanoTime();
+    private volatile long end;
+
+    void processed(final float duration, final long detections) {
+        this.processed.increment();
+        this.audioSeconds.add(duration);
+        this.detections.add(detections);
+    }
+
+    void skipped() {
+        this.skipped.increment();
+    }
+
+    void failed() {
+        this.failed.increment();
+    }
+
+    void finish() {
+        this.end = System.nanoTime();
+    }
+
+    public long getProcessed() {
+        return this.processed.sum();
+    }
+
+    public long getSkipped() {
+        return this.skipped.sum();
+    }
+
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    public long getDetections() {
+        return this.detections.sum();
+    }
+
+    public double getAudioSeconds() {
+        return this.audioSeconds.sum();
+    }
+
+    public double getWallSeconds() {
+        return ((this.end != 0 ? this.end : System.nanoTime()) - this.start) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        final double wallSeconds = this.getWallSeconds();
+        return String.format(Locale.ROOT, "%d files processed, %d skipped, %d failed, %d detections, %.1f s of audio in %.2f s"
+                        + " (%.1f files/s, %.1fx real time)",
+                this.getProcessed(), this.getSkipped(), this.getFailed(), this.getDetections(), this.getAudioSeconds(), wallSeconds,
+                this.getProcessed() / wallSeconds, this.getAudioSeconds() / wallSeconds);
+    }
+}
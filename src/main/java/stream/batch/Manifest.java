@@ -0,0 +1,97 @@
+package stream.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Progress of a batch, kept next to its outputs so an interrupted run can resume.
+ * <p>
+ * One tab separated line is appended and flushed per file once its output is in
+ * place: status, size, last modified time, settings, detections, milliseconds
+ * and path. A file recorded as done with the same size, modification time and
+ * settings of the run is skipped by the next run, so changing the engine or the
+ * threshold processes the files again. A line cut short by a crash is ignored.
+ */
+public class Manifest implements AutoCloseable {
+
+    public static final String FILE_NAME = "manifest.tsv";
+    private static final String DONE = "done";
+    private static final String FAILED = "failed";
+
+    // path to size, modification time and settings of the files done
+    private final Map<String, String> done = new HashMap<>();
+    private final String settings;
+    private final BufferedWriter writer;
+
+    private Manifest(final Path file, final String settings) throws IOException {
+        this.settings = settings;
+        if (Files.exists(file)) {
+            final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            for (final String line : lines) {
+                final String[] fields = line.split("\t", 7);
+                if (fields.length == 7 && DONE.equals(fields[0])) {
+                    this.done.put(fields[6], version(fields[1], fields[2], fields[3]));
+                }
+            }
+        }
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // settings are everything the outputs depend on besides the file, a single line without tabs
+    public static Manifest open(final Path file, final String settings) throws IOException {
+        if (settings.indexOf('\t') >= 0 || settings.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Settings must fit in a field: " + settings);
+        }
+        return new Manifest(file, settings);
+    }
+
+    public synchronized boolean isDone(final Path file) throws IOException {
+        return this.version(file).equals(this.done.get(key(file)));
+    }
+
+    public synchronized void done(final Path file, final long detections, final long millis) throws IOException {
+        final String version = this.version(file);
+        this.append(DONE + '\t' + version + '\t' + detections + '\t' + millis + '\t' + key(file));
+        this.done.put(key(file), version);
+    }
+
+    public synchronized void failed(final Path file, final long millis) throws IOException {
+        this.append(FAILED + '\t' + this.version(file) + "\t0\t" + millis + '\t' + key(file));
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            this.writer.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(final String line) throws IOException {
+        this.writer.write(line);
+        this.writer.newLine();
+        this.writer.flush();
+    }
+
+    private static String key(final Path file) {
+        return file.toAbsolutePath().normalize().toString();
+    }
+
+    // the size, modification time and settings fields of a line
+    private String version(final Path file) throws IOException {
+        return version(Long.toString(Files.size(file)), Long.toString(Files.getLastModifiedTime(file).toMillis()), this.settings);
+    }
+
+    private static String version(final String size, final String lastModified, final String settings) {
+        return size + '\t' + lastModified + '\t' + settings;
+    }
+}
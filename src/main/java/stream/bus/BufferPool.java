@@ -0,0 +1,88 @@
+package stream.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of fixed size sample arrays, so chunks stop allocating a new one each.
+ * <p>
+ * {@link #acquire()} hands out a free array or allocates one when the pool is
+ * empty (a miss), {@link #release(short[])} puts it back, or lets the GC have it
+ * when the pool is already full. Arrays are not cleared, the owner overwrites
+ * them. The difference between acquired and released arrays is reported as
+ * outstanding: anything left once the pipeline is done is a leak.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final RingBuffer<short[]> free;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public BufferPool(final int bufferSize, final int capacity) {
+        this.bufferSize = bufferSize;
+        this.free = new RingBuffer<>(capacity);
+    }
+
+    public short[] acquire() {
+        final short[] buffer = this.free.poll();
+        if (buffer != null) {
+            this.hits.incrementAndGet();
+            return buffer;
+        }
+        this.misses.incrementAndGet();
+        return new short[this.bufferSize];
+    }
+
+    public void release(final short[] buffer) {
+        if (buffer.length != this.bufferSize) {
+            throw new IllegalArgumentException("Buffer was not acquired from this pool");
+        }
+        this.releases.incrementAndGet();
+        if (!this.free.offer(buffer)) {
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    public int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    public int getCapacity() {
+        return this.free.capacity();
+    }
+
+    public int getFree() {
+        return this.free.size();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    // acquired and not released yet
+    public long getOutstanding() {
+        return this.hits.get() + this.misses.get() - this.releases.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool{" +
+                "capacity=" + this.getCapacity() +
+                ", free=" + this.getFree() +
+                ", hits=" + this.getHits() +
+                ", misses=" + this.getMisses() +
+                ", dropped=" + this.getDropped() +
+                ", outstanding=" + this.getOutstanding() +
+                '}';
+    }
+}
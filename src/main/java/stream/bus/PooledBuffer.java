@@ -0,0 +1,41 @@
+package stream.bus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sample array of a {@link BufferPool} shared by several holders, typically the
+ * overlapping chunks cut from it. It starts with one reference, every extra
+ * holder calls {@link #retain()}, each holder calls {@link #release()} once done
+ * and the last release gives the array back to the pool.
+ */
+public class PooledBuffer {
+
+    private final short[] samples;
+    private final BufferPool bufferPool;
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    public PooledBuffer(final BufferPool bufferPool) {
+        this.samples = bufferPool.acquire();
+        this.bufferPool = bufferPool;
+    }
+
+    public short[] getSamples() {
+        return this.samples;
+    }
+
+    public void retain() {
+        if (this.references.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Buffer already released");
+        }
+    }
+
+    public void release() {
+        final int remaining = this.references.decrementAndGet();
+        if (remaining < 0) {
+            throw new IllegalStateException("Buffer released too many times");
+        }
+        if (remaining == 0) {
+            this.bufferPool.release(this.samples);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package stream.bus;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer multi-consumer queue.
+ * <p>
+ * Slots are preallocated and each one carries a sequence number telling whether
+ * it is free for the producer of a given position or filled for the consumer of
+ * that position, so offering and polling only cost a CAS on the head or tail
+ * counter and never allocate. Capacity is rounded up to a power of 2, at least 2.
+ */
+public class RingBuffer<T> {
+
+    private final int mask;
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    public RingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity);
+        }
+        // a single slot could not tell a filled position from the next free one
+        final int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.items = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return this.items.length;
+    }
+
+    // add item if a slot is free, return false when the buffer is full
+    public boolean offer(final T item) {
+        while (true) {
+            final long position = this.head.get();
+            final int index = (int) position & this.mask;
+            final long available = this.sequences.get(index) - position;
+            if (available == 0) {
+                if (this.head.compareAndSet(position, position + 1)) {
+                    this.items[index] = item;
+                    this.sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+    }
+
+    // remove the oldest item, return null when the buffer is empty
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        while (true) {
+            final long position = this.tail.get();
+            final int index = (int) position & this.mask;
+            final long filled = this.sequences.get(index) - (position + 1);
+            if (filled == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    final T item = (T) this.items[index];
+                    this.items[index] = null;
+                    this.sequences.lazySet(index, position + this.mask + 1);
+                    return item;
+                }
+            } else if (filled < 0) {
+                return null;
+            }
+        }
+    }
+
+    public int size() {
+        final long size = this.head.get() - this.tail.get();
+        return (int) Math.max(0, Math.min(size, this.items.length));
+    }
+
+    public boolean isEmpty() {
+        return this.size() == 0;
+    }
+}
@@ -1,25 +1,134 @@
 package stream.bus;
 
-import java.util.Deque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Bounded queue between the readers and the workers.
+ * <p>
+ * Producers block in {@link #push} while the queue is full, so a slow analyzer
+ * holds back the reader instead of letting the whole file pile up on the heap.
+ * Each producer registers itself before it starts and reports when it is done,
+ * the queue closes when the last one completes. Once closed, {@link #take}
+ * drains what is left and then returns null, in every consumer.
+ */
 public class SampleQueue<T> {
 
-    private final Deque<T> samples;
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private final RingBuffer<T> samples;
+    private final WaitStrategy waitStrategy;
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile boolean closed;
 
     public SampleQueue() {
-        this.samples = new LinkedBlockingDeque<>();
+        this(DEFAULT_CAPACITY, WaitStrategy.blocking());
+    }
+
+    public SampleQueue(final int capacity, final WaitStrategy waitStrategy) {
+        this.samples = new RingBuffer<>(capacity);
+        this.waitStrategy = waitStrategy;
     }
 
+    // add a sample, waiting for a free slot while the queue is full
     public void push(final T sample) {
-        this.samples.addFirst(sample);
+        if (this.closed) {
+            throw new IllegalStateException("Queue is closed");
+        }
+        try {
+            this.waitStrategy.await(() -> this.samples.offer(sample), Long.MAX_VALUE);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while pushing", e);
+        }
+        this.waitStrategy.signalAll();
     }
 
+    // add a sample without waiting, return false when the queue is full
+    public boolean offer(final T sample) {
+        if (this.closed) {
+            throw new IllegalStateException("Queue is closed");
+        }
+        if (!this.samples.offer(sample)) {
+            return false;
+        }
+        this.waitStrategy.signalAll();
+        return true;
+    }
+
+    // oldest sample, or null if the queue is currently empty
     public T get() {
-        return this.samples.pollLast();
+        final T sample = this.samples.poll();
+        if (sample != null) {
+            this.waitStrategy.signalAll();
+        }
+        return sample;
+    }
+
+    // oldest sample, waiting for one to come, or null once the queue is closed and drained
+    public T take() throws InterruptedException {
+        return this.take(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    // oldest sample, waiting at most timeout, or null if none came or the queue is drained, see isDrained
+    public T take(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final Object[] taken = new Object[1];
+        this.waitStrategy.await(() -> {
+            // read the flag first: a sample pushed before close is then always seen by poll
+            final boolean wasClosed = this.closed;
+            taken[0] = this.samples.poll();
+            return taken[0] != null || wasClosed;
+        }, unit.toNanos(timeout));
+        if (taken[0] != null) {
+            this.waitStrategy.signalAll();
+        }
+        @SuppressWarnings("unchecked") final T sample = (T) taken[0];
+        return sample;
+    }
+
+    // announce a producer, must be called before any consumer may see the queue closed
+    public void registerProducer() {
+        if (this.closed) {
+            throw new IllegalStateException("Queue is closed");
+        }
+        this.producers.incrementAndGet();
+    }
+
+    // a registered producer pushed its last sample, the queue closes after the last one
+    public void producerDone() {
+        final int remaining = this.producers.decrementAndGet();
+        if (remaining < 0) {
+            throw new IllegalStateException("More producers done than registered");
+        }
+        if (remaining == 0) {
+            this.close();
+        }
+    }
+
+    // no more samples will be pushed, waiting consumers return once the queue is drained
+    public void close() {
+        this.closed = true;
+        this.waitStrategy.signalAll();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    // closed and nothing left to take
+    public boolean isDrained() {
+        return this.closed && this.samples.isEmpty();
     }
 
     public boolean isEmpty() {
         return this.samples.isEmpty();
     }
+
+    public int size() {
+        return this.samples.size();
+    }
+
+    public int capacity() {
+        return this.samples.capacity();
+    }
 }
@@ -0,0 +1,103 @@
+package stream.bus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How a producer waits for a free slot or a consumer waits for an item.
+ * The attempt passed to {@link #await} both checks and performs the operation,
+ * so no wake up can be lost between the check and the action.
+ */
+public interface WaitStrategy {
+
+    // retry attempt until it succeeds or timeoutNanos elapsed, Long.MAX_VALUE waits forever
+    boolean await(BooleanSupplier attempt, long timeoutNanos) throws InterruptedException;
+
+    // wake up waiters after the state of the buffer changed
+    void signalAll();
+
+    // parks waiting threads, cheapest on CPU when producers and consumers run at different paces
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    // busy spins then yields, lowest latency when there is a core to spare for each thread
+    static WaitStrategy spinning() {
+        return new Spinning();
+    }
+
+    class Blocking implements WaitStrategy {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = this.lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public boolean await(final BooleanSupplier attempt, final long timeoutNanos) throws InterruptedException {
+            if (attempt.getAsBoolean()) {
+                return true;
+            }
+            final long start = System.nanoTime();
+            this.lock.lockInterruptibly();
+            this.waiters.incrementAndGet();
+            try {
+                while (!attempt.getAsBoolean()) {
+                    final long remaining = timeoutNanos - (System.nanoTime() - start);
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    // bounded park in case a signal raced with the registration above
+                    this.changed.awaitNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(10)));
+                }
+                return true;
+            } finally {
+                this.waiters.decrementAndGet();
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (this.waiters.get() > 0) {
+                this.lock.lock();
+                try {
+                    this.changed.signalAll();
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+        }
+    }
+
+    class Spinning implements WaitStrategy {
+
+        private static final int SPINS_BEFORE_YIELD = 100;
+
+        @Override
+        public boolean await(final BooleanSupplier attempt, final long timeoutNanos) throws InterruptedException {
+            final long start = System.nanoTime();
+            int spins = 0;
+            while (!attempt.getAsBoolean()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (System.nanoTime() - start >= timeoutNanos) {
+                    return false;
+                }
+                if (++spins < SPINS_BEFORE_YIELD) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+}
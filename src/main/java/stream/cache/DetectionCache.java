@@ -0,0 +1,233 @@
+package stream.cache;
+
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.reader.WavReader;
+import stream.sink.DetectionSink;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Detections of a file before thresholding, kept on disk so a new run with
+ * another threshold skips decoding, resampling and the transforms.
+ * <p>
+ * An entry is keyed by a hash of the audio content and of every setting the
+ * detections depend on. It holds the detections of every harmonic inspected,
+ * whatever their power, in output order, as fixed size big endian records:
+ * start time as a float, note as the range ordinal in a byte and the octave in
+ * a short, frequency and power as doubles.
+ * Entries are read memory mapped. The least recently used ones are deleted once
+ * the directory goes over its size budget, a hit counts as a use.
+ */
+public class DetectionCache {
+
+    // changed with the record layout, older entries are deleted when read
+    private static final int MAGIC = 0x44455432;
+    private static final int HEADER = Integer.BYTES;
+    private static final int NOTE = Byte.BYTES + Short.BYTES;
+    private static final int RECORD = Float.BYTES + NOTE + 2 * Double.BYTES;
+    private static final String EXTENSION = ".det";
+
+    private final Path directory;
+    private final long budget;
+
+    public DetectionCache(final Path directory, final long budget) {
+        this.directory = directory;
+        this.budget = budget;
+    }
+
+    // hex SHA-256 of the content of the file, on disk or a classpath resource like WavReader reads it, and of the settings
+    public static String key(final String fileName, final List<?> settings) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final Path path = Paths.get(fileName);
+        try (final InputStream inputStream = Files.isRegularFile(path)
+                ? Files.newInputStream(path)
+                : WavReader.class.getClassLoader().getResourceAsStream(fileName)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException(fileName);
+            }
+            try (final DigestInputStream digestInputStream = new DigestInputStream(inputStream, digest)) {
+                digestInputStream.transferTo(OutputStream.nullOutputStream());
+            }
+        }
+        digest.update(settings.toString().getBytes(StandardCharsets.UTF_8));
+        final StringBuilder key = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            key.append(String.format("%02x", b));
+        }
+        return key.toString();
+    }
+
+    // pass the cached detections above powerThreshold to sink, false if there is no entry for key
+    public boolean replay(final String key, final double powerThreshold, final DetectionSink sink) throws IOException {
+        final Path entry = this.entry(key);
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(entry)) {
+            final long size = channel.size();
+            if (size < HEADER || (size - HEADER) % RECORD != 0) {
+                Files.deleteIfExists(entry);
+                return false;
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (final NoSuchFileException e) {
+            return false;
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            Files.deleteIfExists(entry);
+            return false;
+        }
+        Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        // labels by range and octave, built once
+        final Map<Integer, String> notes = new HashMap<>();
+        for (int position = HEADER; position < buffer.limit(); position += RECORD) {
+            final double power = buffer.getDouble(position + Float.BYTES + NOTE + Double.BYTES);
+            if (power > powerThreshold) {
+                final MusicalRange musicalRange = MusicalRange.values()[buffer.get(position + Float.BYTES)];
+                final int octave = buffer.getShort(position + Float.BYTES + Byte.BYTES);
+                final String note = notes.computeIfAbsent(musicalRange.ordinal() << Short.SIZE | octave & 0xFFFF,
+                        k -> musicalRange.toString() + octave);
+                sink.accept(new Detection(buffer.getFloat(position), note, musicalRange, octave,
+                        buffer.getDouble(position + Float.BYTES + NOTE), power));
+            }
+        }
+        return true;
+    }
+
+    // sink recording every detection under key and passing the ones above powerThreshold to downstream
+    public Writer writer(final String key, final double powerThreshold, final DetectionSink downstream) throws IOException {
+        Files.createDirectories(this.directory);
+        return new Writer(key, powerThreshold, downstream);
+    }
+
+    // total size of the entries, after deleting the least recently used ones over the budget
+    long evict() throws IOException {
+        final List<Path> entries;
+        try (final Stream<Path> paths = Files.list(this.directory)) {
+            entries = paths.filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(DetectionCache::lastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+        long total = 0;
+        for (final Path entry : entries) {
+            final long size = Files.size(entry);
+            if (total + size > this.budget) {
+                Files.deleteIfExists(entry);
+            } else {
+                total += size;
+            }
+        }
+        return total;
+    }
+
+    private static FileTime lastModified(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path entry(final String key) {
+        return this.directory.resolve(key + EXTENSION);
+    }
+
+    /**
+     * Records the detections in a temporary file, which becomes the entry on
+     * {@link #commit()}. Closing without committing, after a failed run,
+     * discards it. Closing does not close the downstream sink. Detections must
+     * come with their range and octave, only labels cannot be recorded.
+     */
+    public class Writer implements DetectionSink {
+
+        private final String key;
+        private final double powerThreshold;
+        private final DetectionSink downstream;
+        private final Path part;
+        private final DataOutputStream output;
+        private boolean committed;
+
+        private Writer(final String key, final double powerThreshold, final DetectionSink downstream) throws IOException {
+            this.key = key;
+            this.powerThreshold = powerThreshold;
+            this.downstream = downstream;
+            this.part = Files.createTempFile(DetectionCache.this.directory, key, ".part");
+            this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.part), 1 << 16));
+            this.output.writeInt(MAGIC);
+        }
+
+        @Override
+        public void accept(final Detection detection) {
+            if (detection.getMusicalRange() == null) {
+                throw new IllegalArgumentException("No range for note " + detection.getNote());
+            }
+            try {
+                this.output.writeFloat(detection.getStartTime());
+                this.output.writeByte(detection.getMusicalRange().ordinal());
+                this.output.writeShort(detection.getOctave());
+                this.output.writeDouble(detection.getFrequency());
+                this.output.writeDouble(detection.getPower());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (detection.getPower() > this.powerThreshold) {
+                this.downstream.accept(detection);
+            }
+        }
+
+        @Override
+        public void flush() {
+            this.downstream.flush();
+        }
+
+        // make the recorded detections the entry of the key, then evict over the budget
+        public void commit() throws IOException {
+            this.output.close();
+            Files.move(this.part, DetectionCache.this.entry(this.key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            this.committed = true;
+            DetectionCache.this.evict();
+        }
+
+        @Override
+        public void close() {
+            if (this.committed) {
+                return;
+            }
+            try {
+                this.output.close();
+                Files.deleteIfExists(this.part);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
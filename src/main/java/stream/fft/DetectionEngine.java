@@ -0,0 +1,19 @@
+package stream.fft;
+
+import stream.model.Detection;
+import stream.model.SampleChunk;
+
+import java.util.List;
+
+/**
+ * Turns a chunk of samples into the note detections of its musical range.
+ * Implementations may keep scratch buffers between calls and are not expected
+ * to be thread safe.
+ */
+public interface DetectionEngine {
+
+    // number of octaves inspected above the base index of a musical range
+    int HARMONICS = 5;
+
+    List<Detection> detect(SampleChunk sampleChunk, double powerThreshold);
+}
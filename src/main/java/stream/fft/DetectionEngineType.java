@@ -0,0 +1,80 @@
+package stream.fft;
+
+import static stream.App.BUFFER_SIZE;
+
+public enum DetectionEngineType {
+    FFT {
+        @Override
+        public DetectionEngine create(final Window window) {
+            return new FFTService(window);
+        }
+    },
+    // single precision FFT, same detections as FFT
+    FFT32 {
+        @Override
+        public DetectionEngine create(final Window window) {
+            return new FloatFFTService(window);
+        }
+    },
+    GOERTZEL {
+        @Override
+        public DetectionEngine create(final Window window) {
+            return new GoertzelService(window);
+        }
+    },
+    POLYPHONIC {
+        @Override
+        public DetectionEngine create(final Window window) {
+            return new PolyphonicService(window);
+        }
+
+        @Override
+        public boolean isResampled() {
+            return false;
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return false;
+        }
+    },
+    // the window does not apply to a time domain engine
+    YIN {
+        @Override
+        public DetectionEngine create(final Window window) {
+            return new YinService();
+        }
+
+        @Override
+        public boolean isResampled() {
+            return false;
+        }
+
+        @Override
+        public int defaultHop() {
+            return YinService.WINDOW;
+        }
+    };
+
+    // whether the engine expects the chunks of each musical range, or single chunks at the source rate
+    public boolean isResampled() {
+        return true;
+    }
+
+    // whether the detections found with a threshold are those found without one and filtered by power,
+    // which is not the case when weak candidates compete with strong ones
+    public boolean isCacheable() {
+        return true;
+    }
+
+    // samples between the starts of two chunks when no hop is given
+    public int defaultHop() {
+        return BUFFER_SIZE;
+    }
+
+    public DetectionEngine create() {
+        return this.create(Window.RECTANGULAR);
+    }
+
+    public abstract DetectionEngine create(Window window);
+}
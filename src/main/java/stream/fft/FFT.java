@@ -3,24 +3,19 @@ package stream.fft;
 /******************************************************************************
  *  Compilation:  javac FFT.java
  *  Execution:    java FFT n
- *  Dependencies: Complex.java
+ *  Dependencies: Complex.java, InPlaceFFT.java
  *
  *  Compute the FFT and inverse FFT of a length n complex sequence
  *  using the radix 2 Cooley-Tukey algorithm.
- *  Bare bones implementation that runs in O(n log n) time. Our goal
- *  is to optimize the clarity of the code, rather than performance.
+ *  Runs in O(n log n) time.
  *
  *  Limitations
  *  -----------
  *   -  assumes n is a power of 2
  *
- *   -  not the most memory efficient algorithm (because it uses
- *      an object type for representing complex numbers and because
- *      it re-allocates memory for the subarray, instead of doing
- *      in-place or reusing a single temporary array)
- *
- *  For an in-place radix 2 Cooley-Tukey FFT, see
- *  https://introcs.cs.princeton.edu/java/97data/InplaceFFT.java.html
+ *  The transform itself is delegated to InPlaceFFT, which works on
+ *  primitive arrays with precomputed twiddles. The Complex[] methods
+ *  below are kept for compatibility and only copy in and out of it.
  *
  ******************************************************************************/
 
@@ -33,32 +28,18 @@ public class FFT {
         // base case
         if (n == 1) return new Complex[]{x[0]};
 
-        // radix 2 Cooley-Tukey FFT
-        if (n % 2 != 0) {
-            throw new IllegalArgumentException("n is not a power of 2");
-        }
-
-        // fft of even terms
-        final Complex[] even = new Complex[n / 2];
-        for (int k = 0; k < n / 2; k++) {
-            even[k] = x[2 * k];
-        }
-        final Complex[] q = fft(even);
-
-        // fft of odd terms
-        final Complex[] odd = even;  // reuse the array
-        for (int k = 0; k < n / 2; k++) {
-            odd[k] = x[2 * k + 1];
+        final InPlaceFFT inPlaceFFT = InPlaceFFT.of(n);
+        final double[] re = new double[n];
+        final double[] im = new double[n];
+        for (int k = 0; k < n; k++) {
+            re[k] = x[k].re();
+            im[k] = x[k].im();
         }
-        final Complex[] r = fft(odd);
+        inPlaceFFT.fft(re, im);
 
-        // combine
         final Complex[] y = new Complex[n];
-        for (int k = 0; k < n / 2; k++) {
-            final double kth = -2 * k * Math.PI / n;
-            final Complex wk = new Complex(Math.cos(kth), Math.sin(kth));
-            y[k] = q[k].plus(wk.times(r[k]));
-            y[k + n / 2] = q[k].minus(wk.times(r[k]));
+        for (int k = 0; k < n; k++) {
+            y[k] = new Complex(re[k], im[k]);
         }
         return y;
     }
@@ -1,80 +1,52 @@
 package stream.fft;
 
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
 import stream.model.Detection;
-import stream.model.MusicalRange;
 import stream.model.SampleChunk;
+import stream.reader.PcmConverter;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import static stream.App.BUFFER_SIZE;
-import static stream.fft.FFT.fft;
 
-public class FFTService {
-
-    public List<Detection> detectWithFFT(final SampleChunk sampleChunk, final double powerThreshold) {
-        final Complex[] x = new Complex[BUFFER_SIZE];
-        final short[] inputs = sampleChunk.getChannelBytes();
-        for (int i = 0; i < inputs.length; i++) {
-            final double ratio = (double) inputs[i] / (double) Short.MAX_VALUE;
-            x[i] = new Complex(ratio, 0);
-        }
-        final Complex[] fftCoefs = fft(x);
-
-        return this.getDetections(fftCoefs, sampleChunk, powerThreshold);
-    }
-
-    private List<Detection> getDetections(final Complex[] fftCoefs, final SampleChunk sampleChunk, final double powerThreshold) {
-        final List<Detection> detections = new ArrayList<>();
-        final float sampleRate = sampleChunk.getSampleRate();
-        final MusicalRange musicalRange = sampleChunk.getMusicalRange();
-
-        final FFTCoefficient[] fftCoefficients = new FFTCoefficient[BUFFER_SIZE / 2];
-        for (int i = 0; i < fftCoefs.length / 2; i++) {
-            fftCoefficients[i] = new FFTCoefficient(i, fftCoefs[i], sampleRate);
-        }
-
-        final int baseIndex = musicalRange.getBaseIndex();
-        //System.out.println(noteScores);
-        for (int i = 0; i <= 4; i++) {
-            final int multiplier = (int) Math.pow(2, i);
-            final int index = baseIndex * multiplier;
-            final double power = fftCoefficients[index].getPower();
-            if (power > powerThreshold) {
-                //this.printDetection(sampleChunk, fftCoefficients[index], i, power);
-                detections.add(this.getDetection(sampleChunk, fftCoefficients[index], i, power));
-            }
-        }
-        return detections;
+/**
+ * Runs the FFT on a chunk and reports the harmonics of its musical range.
+ * The transform buffers are reused from one chunk to the next, so an instance
+ * must not be shared between threads.
+ */
+public class FFTService implements DetectionEngine {
+
+    private final RealFFT fft = RealFFT.of(BUFFER_SIZE);
+    private final double[] re = new double[BUFFER_SIZE / 2 + 1];
+    private final double[] im = new double[BUFFER_SIZE / 2 + 1];
+    // null for the rectangular window, which needs no multiplication
+    private final double[] window;
+
+    public FFTService() {
+        this(Window.RECTANGULAR);
     }
 
-    private Detection getDetection(final SampleChunk sampleChunk, final FFTCoefficient fftCoefficient, final int i, final double power) {
-        return new Detection(
-                sampleChunk.getStartTime(),
-                String.format("%s%d", sampleChunk.getMusicalRange(), i + 1),
-                fftCoefficient.getFrequency(),
-                fftCoefficient.getPower());
+    public FFTService(final Window window) {
+        this.window = window == Window.RECTANGULAR ? null : window.table(BUFFER_SIZE);
     }
 
-    private void printDetection(final SampleChunk sampleChunk, final FFTCoefficient fftCoefficient, final int i, final double power) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        final String header = String.format("[%f,%f] ", sampleChunk.getStartTime(), sampleChunk.getEndTime());
-        stringBuilder.append(header);
-        stringBuilder.append(sampleChunk.getMusicalRange());
-        stringBuilder.append(i + 1);
-        stringBuilder.append(String.format(" (%f) ", fftCoefficient.getFrequency()));
-        stringBuilder.append(power);
-        stringBuilder.append(" ");
-        System.out.println(stringBuilder.toString());
+    @Override
+    public List<Detection> detect(final SampleChunk sampleChunk, final double powerThreshold) {
+        return this.detectWithFFT(sampleChunk, powerThreshold);
     }
 
-    public void displayDetection(final Detection d) {
-        final StringBuilder stringBuilder = new StringBuilder();
-        final String header = String.format("[%f] ", d.getStartTime());
-        stringBuilder.append(header);
-        stringBuilder.append(d.getNote());
-        stringBuilder.append(String.format(" (%f) ", d.getFrequency()));
-        stringBuilder.append(d.getPower());
-        System.out.println(stringBuilder.toString());
+    public List<Detection> detectWithFFT(final SampleChunk sampleChunk, final double powerThreshold) {
+        // samples are real, pack even ones in re and odd ones in im for the half size transform
+        final short[] inputs = sampleChunk.getChannelBytes();
+        final int offset = sampleChunk.getOffset();
+        final long start = Metrics.start();
+        PcmConverter.toDoubleEvenOdd(inputs, offset, Math.min(inputs.length - offset, BUFFER_SIZE), 1.0 / Short.MAX_VALUE, this.window,
+                this.re, this.im);
+        this.fft.fftPacked(this.re, this.im);
+        Metrics.record(Stage.TRANSFORM, start);
+
+        final HarmonicTable harmonicTable = HarmonicTable.of(sampleChunk.getMusicalRange());
+        return HarmonicDetector.detect(sampleChunk, harmonicTable, this.re, this.im, powerThreshold);
     }
 }
@@ -0,0 +1,50 @@
+package stream.fft;
+
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.Detection;
+import stream.model.SampleChunk;
+import stream.reader.PcmConverter;
+
+import java.util.List;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * {@link FFTService} in single precision: samples, window, transform and
+ * magnitudes are floats, only the reported power is widened to double. Same
+ * bins and notes, powers within a relative 1e-4 of the double path on 16 bit
+ * input. The transform buffers are reused from one chunk to the next, so an
+ * instance must not be shared between threads.
+ */
+public class FloatFFTService implements DetectionEngine {
+
+    private static final float SCALE = 1.0f / Short.MAX_VALUE;
+
+    private final FloatRealFFT fft = FloatRealFFT.of(BUFFER_SIZE);
+    private final float[] re = new float[BUFFER_SIZE / 2 + 1];
+    private final float[] im = new float[BUFFER_SIZE / 2 + 1];
+    // null for the rectangular window, which needs no multiplication
+    private final float[] window;
+
+    public FloatFFTService() {
+        this(Window.RECTANGULAR);
+    }
+
+    public FloatFFTService(final Window window) {
+        this.window = window == Window.RECTANGULAR ? null : window.floatTable(BUFFER_SIZE);
+    }
+
+    @Override
+    public List<Detection> detect(final SampleChunk sampleChunk, final double powerThreshold) {
+        final short[] inputs = sampleChunk.getChannelBytes();
+        final int offset = sampleChunk.getOffset();
+        final long start = Metrics.start();
+        PcmConverter.toFloatEvenOdd(inputs, offset, Math.min(inputs.length - offset, BUFFER_SIZE), SCALE, this.window, this.re, this.im);
+        this.fft.fftPacked(this.re, this.im);
+        Metrics.record(Stage.TRANSFORM, start);
+
+        final HarmonicTable harmonicTable = HarmonicTable.of(sampleChunk.getMusicalRange());
+        return HarmonicDetector.detect(sampleChunk, harmonicTable, this.re, this.im, powerThreshold);
+    }
+}
@@ -0,0 +1,126 @@
+package stream.fft;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single precision counterpart of {@link RealFFT}: the FFT of a real sequence
+ * of length n through a radix-2 complex FFT of length n/2, on float arrays.
+ * <p>
+ * Samples come from 16 bit PCM, float keeps about 7 significant digits, more
+ * than the input has, while halving the memory traffic of the butterflies.
+ * Twiddle factors are computed in double and rounded once. Instances hold no
+ * mutable state and {@link #of(int)} shares one plan per size.
+ */
+public class FloatRealFFT {
+
+    private static final Map<Integer, FloatRealFFT> PLANS = new ConcurrentHashMap<>();
+
+    private final int n;
+    private final int half;
+    private final int[] swaps;
+    // twiddles of the half size transform
+    private final float[] halfCos;
+    private final float[] halfSin;
+    // twiddles of the final split, k over n
+    private final float[] cos;
+    private final float[] sin;
+
+    public FloatRealFFT(final int n) {
+        if (n < 2 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("n is not a power of 2");
+        }
+        this.n = n;
+        this.half = n / 2;
+        this.swaps = InPlaceFFT.bitReversalSwaps(this.half);
+        this.halfCos = new float[Math.max(1, this.half / 2)];
+        this.halfSin = new float[Math.max(1, this.half / 2)];
+        for (int k = 0; k < this.half / 2; k++) {
+            final double kth = -2 * k * Math.PI / this.half;
+            this.halfCos[k] = (float) Math.cos(kth);
+            this.halfSin[k] = (float) Math.sin(kth);
+        }
+        this.cos = new float[this.half + 1];
+        this.sin = new float[this.half + 1];
+        for (int k = 0; k <= this.half; k++) {
+            final double kth = -2 * k * Math.PI / n;
+            this.cos[k] = (float) Math.cos(kth);
+            this.sin[k] = (float) Math.sin(kth);
+        }
+    }
+
+    // shared plan of size n, built on first use
+    public static FloatRealFFT of(final int n) {
+        return PLANS.computeIfAbsent(n, FloatRealFFT::new);
+    }
+
+    public int size() {
+        return this.n;
+    }
+
+    /**
+     * First n/2+1 bins of the FFT of a real sequence whose even samples are in
+     * re[0..n/2) and odd samples in im[0..n/2), in place.
+     */
+    public void fftPacked(final float[] re, final float[] im) {
+        if (re.length <= this.half || im.length <= this.half) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        this.halfFFT(re, im);
+
+        final float r0 = re[0];
+        final float i0 = im[0];
+        re[0] = r0 + i0;
+        im[0] = 0;
+        re[this.half] = r0 - i0;
+        im[this.half] = 0;
+
+        for (int k = 1, m = this.half - 1; k <= m; k++, m--) {
+            final float sumRe = (re[k] + re[m]) / 2;
+            final float diffRe = (re[k] - re[m]) / 2;
+            final float sumIm = (im[k] + im[m]) / 2;
+            final float diffIm = (im[k] - im[m]) / 2;
+
+            // X[k] = E[k] + W^k O[k] with E = (sumRe, diffIm) and O = (sumIm, -diffRe)
+            re[k] = sumRe + this.cos[k] * sumIm + this.sin[k] * diffRe;
+            im[k] = diffIm - this.cos[k] * diffRe + this.sin[k] * sumIm;
+            if (k != m) {
+                // X[m] with E = (sumRe, -diffIm) and O = (sumIm, diffRe)
+                re[m] = sumRe + this.cos[m] * sumIm - this.sin[m] * diffRe;
+                im[m] = -diffIm + this.cos[m] * diffRe + this.sin[m] * sumIm;
+            }
+        }
+    }
+
+    // complex FFT of size n/2 in place, as InPlaceFFT
+    private void halfFFT(final float[] re, final float[] im) {
+        for (int s = 0; s < this.swaps.length; s += 2) {
+            final int i = this.swaps[s];
+            final int j = this.swaps[s + 1];
+            final float tr = re[i];
+            re[i] = re[j];
+            re[j] = tr;
+            final float ti = im[i];
+            im[i] = im[j];
+            im[j] = ti;
+        }
+        for (int len = 2; len <= this.half; len <<= 1) {
+            final int halfLen = len >> 1;
+            final int step = this.half / len;
+            for (int start = 0; start < this.half; start += len) {
+                for (int j = 0, k = 0; j < halfLen; j++, k += step) {
+                    final int a = start + j;
+                    final int b = a + halfLen;
+                    final float wr = this.halfCos[k];
+                    final float wi = this.halfSin[k];
+                    final float tr = wr * re[b] - wi * im[b];
+                    final float ti = wr * im[b] + wi * re[b];
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package stream.fft;
+
+/**
+ * Goertzel algorithm evaluating a fixed set of DFT bins of a length n sequence.
+ * <p>
+ * Each bin costs one multiply-add per sample, so for k bins the cost is O(k.n)
+ * instead of O(n log n) for a full FFT. All bins are updated in the same pass
+ * over the samples. The recurrence state is kept in the instance, which must
+ * not be shared between threads.
+ */
+public class Goertzel {
+
+    private final int n;
+    private final int[] bins;
+    private final double[] coeffs;
+    private final double[] cos;
+    private final double[] sin;
+    private final double[] s1;
+    private final double[] s2;
+
+    public Goertzel(final int n, final int[] bins) {
+        this.n = n;
+        this.bins = bins.clone();
+        this.coeffs = new double[bins.length];
+        this.cos = new double[bins.length];
+        this.sin = new double[bins.length];
+        for (int b = 0; b < bins.length; b++) {
+            final double omega = 2 * Math.PI * bins[b] / n;
+            this.cos[b] = Math.cos(omega);
+            this.sin[b] = Math.sin(omega);
+            this.coeffs[b] = 2 * this.cos[b];
+        }
+        this.s1 = new double[bins.length];
+        this.s2 = new double[bins.length];
+    }
+
+    public int[] getBins() {
+        return this.bins.clone();
+    }
+
+    // compute the DFT of samples / scale at each bin, samples past the end are taken as zeros
+    public void compute(final short[] samples, final double scale, final double[] re, final double[] im) {
+        this.compute(samples, 0, scale, null, re, im);
+    }
+
+    // same on the n samples from offset, multiplied by window when there is one
+    public void compute(final short[] samples, final int offset, final double scale, final double[] window,
+                        final double[] re, final double[] im) {
+        final int k = this.bins.length;
+        final int length = Math.max(0, Math.min(samples.length - offset, this.n));
+        for (int b = 0; b < k; b++) {
+            this.s1[b] = 0;
+            this.s2[b] = 0;
+        }
+        for (int i = 0; i < length; i++) {
+            final double x = window != null ? samples[offset + i] / scale * window[i] : samples[offset + i] / scale;
+            for (int b = 0; b < k; b++) {
+                final double s0 = x + this.coeffs[b] * this.s1[b] - this.s2[b];
+                this.s2[b] = this.s1[b];
+                this.s1[b] = s0;
+            }
+        }
+        // trailing zeros of a shorter chunk still advance the recurrence
+        for (int i = length; i < this.n; i++) {
+            for (int b = 0; b < k; b++) {
+                final double s0 = this.coeffs[b] * this.s1[b] - this.s2[b];
+                this.s2[b] = this.s1[b];
+                this.s1[b] = s0;
+            }
+        }
+        for (int b = 0; b < k; b++) {
+            re[b] = this.s1[b] - this.s2[b] * this.cos[b];
+            im[b] = this.s2[b] * this.sin[b];
+        }
+    }
+}
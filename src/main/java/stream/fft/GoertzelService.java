@@ -0,0 +1,48 @@
+package stream.fft;
+
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Detection engine evaluating only the harmonic bins of each musical range
+ * with the Goertzel algorithm, instead of running a full FFT per chunk.
+ */
+public class GoertzelService implements DetectionEngine {
+
+    private final Map<MusicalRange, Goertzel> goertzels = new EnumMap<>(MusicalRange.class);
+    private final double[] re = new double[HARMONICS];
+    private final double[] im = new double[HARMONICS];
+    // null for the rectangular window, which needs no multiplication
+    private final double[] window;
+
+    public GoertzelService() {
+        this(Window.RECTANGULAR);
+    }
+
+    public GoertzelService(final Window window) {
+        this.window = window == Window.RECTANGULAR ? null : window.table(BUFFER_SIZE);
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            this.goertzels.put(musicalRange, new Goertzel(BUFFER_SIZE, HarmonicTable.of(musicalRange).getBins()));
+        }
+    }
+
+    @Override
+    public List<Detection> detect(final SampleChunk sampleChunk, final double powerThreshold) {
+        final MusicalRange musicalRange = sampleChunk.getMusicalRange();
+        final Goertzel goertzel = this.goertzels.get(musicalRange);
+        final long start = Metrics.start();
+        goertzel.compute(sampleChunk.getChannelBytes(), sampleChunk.getOffset(), Short.MAX_VALUE, this.window, this.re, this.im);
+        Metrics.record(Stage.TRANSFORM, start);
+
+        return HarmonicDetector.detectHarmonics(sampleChunk, HarmonicTable.of(musicalRange), this.re, this.im, powerThreshold);
+    }
+}
@@ -0,0 +1,89 @@
+package stream.fft;
+
+import stream.model.Detection;
+import stream.model.SampleChunk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static stream.fft.DetectionEngine.HARMONICS;
+
+/**
+ * Thresholding of the harmonic bins of a spectrum on their squared magnitude.
+ * <p>
+ * A bin is compared with the squared threshold, so the square root is only
+ * taken for the bins reported, and no list is allocated for a chunk with no
+ * detection. The reported power is the magnitude the engines always reported.
+ * Spectra are read from the primitive arrays the transforms write, at the bins
+ * of the {@link HarmonicTable} of the range, or hold only the harmonics in order.
+ */
+public final class HarmonicDetector {
+
+    private HarmonicDetector() {
+    }
+
+    // threshold on squared magnitudes, every bin passes a negative one
+    public static double squaredThreshold(final double powerThreshold) {
+        return powerThreshold < 0 ? -1 : powerThreshold * powerThreshold;
+    }
+
+    // detections of the harmonics whose magnitude at their bin of a full spectrum is above powerThreshold
+    public static List<Detection> detect(final SampleChunk sampleChunk, final HarmonicTable harmonicTable, final double[] re,
+                                         final double[] im, final double powerThreshold) {
+        return detect(sampleChunk, harmonicTable, re, im, true, powerThreshold);
+    }
+
+    // same with re[i], im[i] holding harmonic i, as Goertzel computes them
+    public static List<Detection> detectHarmonics(final SampleChunk sampleChunk, final HarmonicTable harmonicTable, final double[] re,
+                                                  final double[] im, final double powerThreshold) {
+        return detect(sampleChunk, harmonicTable, re, im, false, powerThreshold);
+    }
+
+    // single precision spectrum, magnitudes are computed in float
+    public static List<Detection> detect(final SampleChunk sampleChunk, final HarmonicTable harmonicTable, final float[] re,
+                                         final float[] im, final double powerThreshold) {
+        final double squaredThreshold = squaredThreshold(powerThreshold);
+        List<Detection> detections = null;
+        for (int i = 0; i < HARMONICS; i++) {
+            final int index = harmonicTable.bin(i);
+            final float squared = re[index] * re[index] + im[index] * im[index];
+            if (squared > squaredThreshold) {
+                if (detections == null) {
+                    detections = new ArrayList<>(HARMONICS);
+                }
+                detections.add(detection(sampleChunk, harmonicTable, i, (float) Math.sqrt(squared)));
+            }
+        }
+        return detections != null ? detections : Collections.emptyList();
+    }
+
+    private static List<Detection> detect(final SampleChunk sampleChunk, final HarmonicTable harmonicTable, final double[] re,
+                                          final double[] im, final boolean atBins, final double powerThreshold) {
+        final double squaredThreshold = squaredThreshold(powerThreshold);
+        List<Detection> detections = null;
+        for (int i = 0; i < HARMONICS; i++) {
+            final int index = atBins ? harmonicTable.bin(i) : i;
+            if (re[index] * re[index] + im[index] * im[index] > squaredThreshold) {
+                if (detections == null) {
+                    detections = new ArrayList<>(HARMONICS);
+                }
+                detections.add(detection(sampleChunk, harmonicTable, i, Math.hypot(re[index], im[index])));
+            }
+        }
+        return detections != null ? detections : Collections.emptyList();
+    }
+
+    // re[k]^2 + im[k]^2 into squared[k] for every k of squared
+    public static void squaredMagnitudes(final double[] re, final double[] im, final double[] squared) {
+        for (int k = 0; k < squared.length; k++) {
+            squared[k] = re[k] * re[k] + im[k] * im[k];
+        }
+    }
+
+    private static Detection detection(final SampleChunk sampleChunk, final HarmonicTable harmonicTable, final int harmonic,
+                                       final double power) {
+        return new Detection(sampleChunk.getStartTime(), harmonicTable.note(harmonic), harmonicTable.getMusicalRange(),
+                HarmonicTable.octave(harmonic), harmonicTable.frequency(harmonic, sampleChunk.getSampleRate()), power);
+    }
+}
@@ -0,0 +1,97 @@
+package stream.fft;
+
+import stream.model.MusicalRange;
+import stream.model.PitchTable;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static stream.fft.DetectionEngine.HARMONICS;
+
+/**
+ * Bins inspected for a musical range, with their frequency and note label,
+ * computed once for the transform size of the {@link PitchTable} so detecting a
+ * chunk only touches its samples.
+ * Harmonic i is at bin {@code baseIndex << i}. Tables follow the current
+ * {@link PitchTable}, they are rebuilt if it is replaced.
+ */
+public final class HarmonicTable {
+
+    private static volatile Tables tables = new Tables(PitchTable.current());
+
+    private final MusicalRange musicalRange;
+    private final float sampleRate;
+    private final int fftSize;
+    private final int[] bins = new int[HARMONICS];
+    private final double[] frequencies = new double[HARMONICS];
+    private final String[] notes = new String[HARMONICS];
+
+    private HarmonicTable(final MusicalRange musicalRange, final PitchTable pitchTable) {
+        this.musicalRange = musicalRange;
+        this.sampleRate = pitchTable.getSampleRate(musicalRange);
+        this.fftSize = pitchTable.getFftSize();
+        for (int i = 0; i < HARMONICS; i++) {
+            this.bins[i] = pitchTable.getBaseIndex() << i;
+            this.frequencies[i] = this.binFrequency(this.bins[i], this.sampleRate);
+            this.notes[i] = musicalRange.toString() + octave(i);
+        }
+    }
+
+    public static HarmonicTable of(final MusicalRange musicalRange) {
+        Tables tables = HarmonicTable.tables;
+        if (tables.pitchTable != PitchTable.current()) {
+            tables = new Tables(PitchTable.current());
+            HarmonicTable.tables = tables;
+        }
+        return tables.byRange.get(musicalRange);
+    }
+
+    private double binFrequency(final int bin, final float sampleRate) {
+        return bin * (sampleRate / (double) this.fftSize);
+    }
+
+    // rate the chunks of the range are resampled to
+    public float getSampleRate() {
+        return this.sampleRate;
+    }
+
+    public int bin(final int harmonic) {
+        return this.bins[harmonic];
+    }
+
+    // frequency of the harmonic in a chunk sampled at sampleRate, from the table for the usual rate
+    public double frequency(final int harmonic, final float sampleRate) {
+        return sampleRate == this.sampleRate ? this.frequencies[harmonic] : this.binFrequency(this.bins[harmonic], sampleRate);
+    }
+
+    public MusicalRange getMusicalRange() {
+        return this.musicalRange;
+    }
+
+    // harmonic i is the pitch class in octave i + 1
+    public static int octave(final int harmonic) {
+        return harmonic + 1;
+    }
+
+    public String note(final int harmonic) {
+        return this.notes[harmonic];
+    }
+
+    public int[] getBins() {
+        return this.bins.clone();
+    }
+
+    // tables of every range for one pitch table
+    private static class Tables {
+
+        private final PitchTable pitchTable;
+        private final Map<MusicalRange, HarmonicTable> byRange = new EnumMap<>(MusicalRange.class);
+
+        Tables(final PitchTable pitchTable) {
+            this.pitchTable = pitchTable;
+            for (final MusicalRange musicalRange : MusicalRange.values()) {
+                this.byRange.put(musicalRange, new HarmonicTable(musicalRange, pitchTable));
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package stream.fft;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Iterative radix-2 Cooley-Tukey FFT working in place on primitive arrays.
+ * <p>
+ * The bit-reversal permutation and the twiddle factors only depend on the
+ * transform size, so they are computed once in the constructor and a call
+ * to {@link #fft(double[], double[])} does not allocate anything.
+ * Instances are immutable and can be shared between threads, the arrays
+ * passed in are owned by the caller. {@link #of(int)} hands out one shared
+ * plan per size.
+ */
+public class InPlaceFFT {
+
+    private static final Map<Integer, InPlaceFFT> PLANS = new ConcurrentHashMap<>();
+
+    private final int n;
+    private final int[] swaps;
+    private final double[] cos;
+    private final double[] sin;
+
+    public InPlaceFFT(final int n) {
+        if (n < 1 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("n is not a power of 2");
+        }
+        this.n = n;
+        this.swaps = bitReversalSwaps(n);
+        this.cos = new double[n / 2];
+        this.sin = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            final double kth = -2 * k * Math.PI / n;
+            this.cos[k] = Math.cos(kth);
+            this.sin[k] = Math.sin(kth);
+        }
+    }
+
+    // shared plan of size n, built on first use
+    public static InPlaceFFT of(final int n) {
+        return PLANS.computeIfAbsent(n, InPlaceFFT::new);
+    }
+
+    public int size() {
+        return this.n;
+    }
+
+    // compute the FFT of (re, im) in place
+    public void fft(final double[] re, final double[] im) {
+        this.checkLength(re, im);
+        this.permute(re, im);
+        for (int len = 2; len <= this.n; len <<= 1) {
+            final int half = len >> 1;
+            final int step = this.n / len;
+            for (int start = 0; start < this.n; start += len) {
+                for (int j = 0, k = 0; j < half; j++, k += step) {
+                    final int a = start + j;
+                    final int b = a + half;
+                    final double wr = this.cos[k];
+                    final double wi = this.sin[k];
+                    final double tr = wr * re[b] - wi * im[b];
+                    final double ti = wr * im[b] + wi * re[b];
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    // compute the inverse FFT of (re, im) in place, by conjugating around a forward FFT
+    public void ifft(final double[] re, final double[] im) {
+        this.checkLength(re, im);
+        for (int i = 0; i < this.n; i++) {
+            im[i] = -im[i];
+        }
+        this.fft(re, im);
+        final double scale = 1.0 / this.n;
+        for (int i = 0; i < this.n; i++) {
+            re[i] *= scale;
+            im[i] = -im[i] * scale;
+        }
+    }
+
+    private void permute(final double[] re, final double[] im) {
+        for (int s = 0; s < this.swaps.length; s += 2) {
+            final int i = this.swaps[s];
+            final int j = this.swaps[s + 1];
+            final double tr = re[i];
+            re[i] = re[j];
+            re[j] = tr;
+            final double ti = im[i];
+            im[i] = im[j];
+            im[j] = ti;
+        }
+    }
+
+    private void checkLength(final double[] re, final double[] im) {
+        if (re.length < this.n || im.length < this.n) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+    }
+
+    // pairs (i, j) with i < j and j the bit reversal of i
+    static int[] bitReversalSwaps(final int n) {
+        final int bits = Integer.numberOfTrailingZeros(n);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (i < reverse(i, bits)) {
+                count++;
+            }
+        }
+        final int[] swaps = new int[count * 2];
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            final int j = reverse(i, bits);
+            if (i < j) {
+                swaps[s++] = i;
+                swaps[s++] = j;
+            }
+        }
+        return swaps;
+    }
+
+    private static int reverse(final int i, final int bits) {
+        return bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+    }
+}
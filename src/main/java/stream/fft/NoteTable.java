@@ -0,0 +1,65 @@
+package stream.fft;
+
+import stream.model.MusicalRange;
+import stream.model.PitchTable;
+
+/**
+ * The HARMONICS octaves of every pitch class of a {@link PitchTable}, in ascending
+ * frequency, for the engines working at the source rate rather than on the bins
+ * of a resampled range.
+ */
+final class NoteTable {
+
+    private static final double HALF_SEMITONE = Math.pow(2, 1 / 24.0);
+
+    private final String[] notes;
+    private final double[] frequencies;
+
+    NoteTable(final PitchTable pitchTable) {
+        final MusicalRange[] musicalRanges = MusicalRange.values();
+        final int size = musicalRanges.length * DetectionEngine.HARMONICS;
+        this.notes = new String[size];
+        this.frequencies = new double[size];
+        for (int octave = 0; octave < DetectionEngine.HARMONICS; octave++) {
+            for (final MusicalRange musicalRange : musicalRanges) {
+                final int index = octave * musicalRanges.length + musicalRange.ordinal();
+                this.notes[index] = musicalRange.toString() + (octave + 1);
+                this.frequencies[index] = pitchTable.getBaseFrequency(musicalRange) * (1 << octave);
+            }
+        }
+    }
+
+    int size() {
+        return this.frequencies.length;
+    }
+
+    MusicalRange musicalRange(final int index) {
+        return MusicalRange.values()[index % MusicalRange.values().length];
+    }
+
+    int octave(final int index) {
+        return index / MusicalRange.values().length + 1;
+    }
+
+    String note(final int index) {
+        return this.notes[index];
+    }
+
+    double frequency(final int index) {
+        return this.frequencies[index];
+    }
+
+    // index of the note within half a semitone of the frequency, -1 if it is out of the table
+    int nearest(final double frequency) {
+        int nearest = -1;
+        double distance = HALF_SEMITONE;
+        for (int i = 0; i < this.frequencies.length; i++) {
+            final double ratio = frequency > this.frequencies[i] ? frequency / this.frequencies[i] : this.frequencies[i] / frequency;
+            if (ratio < distance) {
+                nearest = i;
+                distance = ratio;
+            }
+        }
+        return nearest;
+    }
+}
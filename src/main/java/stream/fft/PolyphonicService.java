@@ -0,0 +1,164 @@
+package stream.fft;
+
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.Detection;
+import stream.model.PitchTable;
+import stream.model.SampleChunk;
+import stream.reader.PcmConverter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Detection engine resolving the notes of every musical range at once from a
+ * single FFT of chunks left at the source sample rate, so chords come out of
+ * one transform instead of twelve resampled ones.
+ * <p>
+ * The candidates are the HARMONICS octaves of each pitch class of the current
+ * {@link PitchTable}. Spectral peaks are located by quadratic interpolation of
+ * the log magnitude around local maxima, which places them between bins, and a
+ * peak only counts for a frequency within half a semitone of it. A candidate is
+ * scored by the sum of the peaks at its first PARTIALS multiples; the best one
+ * whose fundamental is above the threshold is reported, its partials are taken
+ * out of the other scores, and so on up to MAX_NOTES notes. A window other than
+ * the rectangular one, such as Hann, makes the interpolation much more accurate.
+ * The buffers are reused from one chunk to the next, so an instance must not be
+ * shared between threads.
+ */
+public class PolyphonicService implements DetectionEngine {
+
+    // multiples of a fundamental summed in its score
+    static final int PARTIALS = 8;
+    // notes reported per chunk at most
+    static final int MAX_NOTES = 6;
+    private static final double HALF_SEMITONE = Math.pow(2, 1 / 24.0);
+
+    private final RealFFT fft = RealFFT.of(BUFFER_SIZE);
+    private final double[] re = new double[BUFFER_SIZE / 2 + 1];
+    private final double[] im = new double[BUFFER_SIZE / 2 + 1];
+    // squared magnitudes, a peak is located the same on them and the root is only taken at peaks
+    private final double[] squared = new double[BUFFER_SIZE / 2 + 1];
+    // null for the rectangular window, which needs no multiplication
+    private final double[] window;
+
+    private final NoteTable noteTable;
+    // integer bin and interpolated magnitude of the peak at each partial of each candidate, bin -1 if there is none
+    private final int[][] partialBins;
+    private final double[][] partialMagnitudes;
+    private final boolean[] claimed = new boolean[BUFFER_SIZE / 2 + 1];
+
+    public PolyphonicService() {
+        this(Window.RECTANGULAR);
+    }
+
+    public PolyphonicService(final Window window) {
+        this.window = window == Window.RECTANGULAR ? null : window.table(BUFFER_SIZE);
+        // in ascending frequency, the lower candidate wins a tie
+        this.noteTable = new NoteTable(PitchTable.current());
+        final int candidates = this.noteTable.size();
+        this.partialBins = new int[candidates][PARTIALS];
+        this.partialMagnitudes = new double[candidates][PARTIALS];
+    }
+
+    @Override
+    public List<Detection> detect(final SampleChunk sampleChunk, final double powerThreshold) {
+        final short[] inputs = sampleChunk.getChannelBytes();
+        final int offset = sampleChunk.getOffset();
+        final long start = Metrics.start();
+        PcmConverter.toDoubleEvenOdd(inputs, offset, Math.min(inputs.length - offset, BUFFER_SIZE), 1.0 / Short.MAX_VALUE, this.window,
+                this.re, this.im);
+        this.fft.fftPacked(this.re, this.im);
+        Metrics.record(Stage.TRANSFORM, start);
+        HarmonicDetector.squaredMagnitudes(this.re, this.im, this.squared);
+        this.locatePartials(BUFFER_SIZE / sampleChunk.getSampleRate());
+        return this.selectNotes(sampleChunk, powerThreshold);
+    }
+
+    private void locatePartials(final double binsPerHertz) {
+        for (int candidate = 0; candidate < this.noteTable.size(); candidate++) {
+            for (int partial = 0; partial < PARTIALS; partial++) {
+                this.peak(this.noteTable.frequency(candidate) * (partial + 1) * binsPerHertz, candidate, partial);
+            }
+        }
+    }
+
+    // strongest interpolated peak within half a semitone of the fractional bin
+    private void peak(final double bin, final int candidate, final int partial) {
+        int peakBin = -1;
+        double peakMagnitude = 0;
+        final int from = Math.max(1, (int) Math.floor(bin / HALF_SEMITONE));
+        final int to = Math.min(this.squared.length - 2, (int) Math.ceil(bin * HALF_SEMITONE));
+        for (int k = from; k <= to; k++) {
+            final double squared = this.squared[k];
+            if (squared <= peakMagnitude * peakMagnitude || squared < this.squared[k - 1] || squared < this.squared[k + 1]) {
+                continue;
+            }
+            // parabola through the log magnitudes of the maximum and its neighbours, half the logs of the squares
+            final double alpha = 0.5 * log(this.squared[k - 1]);
+            final double beta = 0.5 * log(squared);
+            final double gamma = 0.5 * log(this.squared[k + 1]);
+            final double denominator = alpha - 2 * beta + gamma;
+            final double shift = denominator < 0 ? 0.5 * (alpha - gamma) / denominator : 0;
+            final double position = k + shift;
+            if (position * HALF_SEMITONE >= bin && position <= bin * HALF_SEMITONE) {
+                peakBin = k;
+                peakMagnitude = Math.exp(beta - 0.25 * (alpha - gamma) * shift);
+            }
+        }
+        this.partialBins[candidate][partial] = peakBin;
+        this.partialMagnitudes[candidate][partial] = peakMagnitude;
+    }
+
+    // a silent bin would give an infinite logarithm
+    private static double log(final double squared) {
+        return Math.log(Math.max(squared, Double.MIN_NORMAL));
+    }
+
+    private List<Detection> selectNotes(final SampleChunk sampleChunk, final double powerThreshold) {
+        Arrays.fill(this.claimed, false);
+        final List<Detection> detections = new ArrayList<>();
+        while (detections.size() < MAX_NOTES) {
+            int best = -1;
+            double bestScore = 0;
+            for (int candidate = 0; candidate < this.noteTable.size(); candidate++) {
+                final int fundamental = this.partialBins[candidate][0];
+                // the fundamental of a reported note is claimed, it cannot come twice
+                if (fundamental < 0 || this.claimed[fundamental] || this.partialMagnitudes[candidate][0] <= powerThreshold) {
+                    continue;
+                }
+                final double score = this.score(candidate);
+                if (score > bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            detections.add(new Detection(sampleChunk.getStartTime(), this.noteTable.note(best), this.noteTable.musicalRange(best),
+                    this.noteTable.octave(best), this.noteTable.frequency(best), this.partialMagnitudes[best][0]));
+            for (final int bin : this.partialBins[best]) {
+                if (bin >= 0) {
+                    this.claimed[bin] = true;
+                }
+            }
+        }
+        return detections;
+    }
+
+    // sum of the partial peaks no reported note has taken yet
+    private double score(final int candidate) {
+        double score = 0;
+        for (int partial = 0; partial < PARTIALS; partial++) {
+            final int bin = this.partialBins[candidate][partial];
+            if (bin >= 0 && !this.claimed[bin]) {
+                score += this.partialMagnitudes[candidate][partial];
+            }
+        }
+        return score;
+    }
+}
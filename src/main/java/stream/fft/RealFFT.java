@@ -0,0 +1,98 @@
+package stream.fft;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FFT of a real sequence of length n computed with a complex FFT of length n/2.
+ * <p>
+ * Even samples go in the real part and odd samples in the imaginary part of a
+ * half size sequence, the two interleaved spectra are then separated using
+ * Hermitian symmetry. Only the n/2+1 non redundant bins are produced.
+ * Like {@link InPlaceFFT}, instances hold no mutable state and {@link #of(int)}
+ * shares one plan per size.
+ */
+public class RealFFT {
+
+    private static final Map<Integer, RealFFT> PLANS = new ConcurrentHashMap<>();
+
+    private final int n;
+    private final InPlaceFFT halfFFT;
+    private final double[] cos;
+    private final double[] sin;
+
+    public RealFFT(final int n) {
+        if (n < 2 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("n is not a power of 2");
+        }
+        this.n = n;
+        this.halfFFT = InPlaceFFT.of(n / 2);
+        this.cos = new double[n / 2 + 1];
+        this.sin = new double[n / 2 + 1];
+        for (int k = 0; k <= n / 2; k++) {
+            final double kth = -2 * k * Math.PI / n;
+            this.cos[k] = Math.cos(kth);
+            this.sin[k] = Math.sin(kth);
+        }
+    }
+
+    // shared plan of size n, built on first use
+    public static RealFFT of(final int n) {
+        return PLANS.computeIfAbsent(n, RealFFT::new);
+    }
+
+    public int size() {
+        return this.n;
+    }
+
+    public int bins() {
+        return this.n / 2 + 1;
+    }
+
+    // compute the first n/2+1 bins of the FFT of input[0..n) into re and im
+    public void fft(final double[] input, final double[] re, final double[] im) {
+        if (input.length < this.n) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        for (int k = 0; k < this.n / 2; k++) {
+            re[k] = input[2 * k];
+            im[k] = input[2 * k + 1];
+        }
+        this.fftPacked(re, im);
+    }
+
+    /**
+     * Same as {@link #fft(double[], double[], double[])} when the caller has already
+     * stored the even samples in re[0..n/2) and the odd samples in im[0..n/2).
+     */
+    public void fftPacked(final double[] re, final double[] im) {
+        final int half = this.n / 2;
+        if (re.length <= half || im.length <= half) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        this.halfFFT.fft(re, im);
+
+        final double r0 = re[0];
+        final double i0 = im[0];
+        re[0] = r0 + i0;
+        im[0] = 0;
+        re[half] = r0 - i0;
+        im[half] = 0;
+
+        for (int k = 1, m = half - 1; k <= m; k++, m--) {
+            final double sumRe = (re[k] + re[m]) / 2;
+            final double diffRe = (re[k] - re[m]) / 2;
+            final double sumIm = (im[k] + im[m]) / 2;
+            final double diffIm = (im[k] - im[m]) / 2;
+
+            // X[k] = E[k] + W^k O[k] with E = (sumRe, diffIm) and O = (sumIm, -diffRe)
+            re[k] = sumRe + this.cos[k] * sumIm + this.sin[k] * diffRe;
+            im[k] = diffIm - this.cos[k] * diffRe + this.sin[k] * sumIm;
+            if (k != m) {
+                // X[m] with E = (sumRe, -diffIm) and O = (sumIm, diffRe)
+                re[m] = sumRe + this.cos[m] * sumIm - this.sin[m] * diffRe;
+                im[m] = -diffIm + this.cos[m] * diffRe + this.sin[m] * sumIm;
+            }
+        }
+    }
+}
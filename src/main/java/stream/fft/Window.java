@@ -0,0 +1,65 @@
+package stream.fft;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Analysis windows applied to a chunk before the transform.
+ * <p>
+ * Tables are computed once per size and shared, callers must not modify them.
+ * They are scaled by the inverse of their coherent gain, so a sine centred on a
+ * bin keeps the magnitude it has with the rectangular window and the power
+ * threshold means the same whatever the window.
+ */
+public enum Window {
+    RECTANGULAR(new double[]{1}),
+    HANN(new double[]{0.5, 0.5}),
+    HAMMING(new double[]{0.54, 0.46}),
+    BLACKMAN(new double[]{0.42, 0.5, 0.08}),
+    BLACKMAN_HARRIS(new double[]{0.35875, 0.48829, 0.14128, 0.01168});
+
+    // cosine sum coefficients a0 - a1 cos(x) + a2 cos(2x) - ...
+    private final double[] coefficients;
+    private final Map<Integer, double[]> tables = new ConcurrentHashMap<>();
+    private final Map<Integer, float[]> floatTables = new ConcurrentHashMap<>();
+
+    Window(final double[] coefficients) {
+        this.coefficients = coefficients;
+    }
+
+    public double[] table(final int size) {
+        return this.tables.computeIfAbsent(size, this::compute);
+    }
+
+    // the same table rounded to float, for the single precision engine
+    public float[] floatTable(final int size) {
+        return this.floatTables.computeIfAbsent(size, s -> {
+            final double[] table = this.table(s);
+            final float[] floatTable = new float[s];
+            for (int i = 0; i < s; i++) {
+                floatTable[i] = (float) table[i];
+            }
+            return floatTable;
+        });
+    }
+
+    private double[] compute(final int size) {
+        final double[] table = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            // periodic form, the right one for spectral analysis
+            final double x = 2 * Math.PI * i / size;
+            double value = 0;
+            for (int k = 0; k < this.coefficients.length; k++) {
+                value += ((k & 1) == 0 ? 1 : -1) * this.coefficients[k] * Math.cos(k * x);
+            }
+            table[i] = value;
+            sum += value;
+        }
+        final double gain = size / sum;
+        for (int i = 0; i < size; i++) {
+            table[i] *= gain;
+        }
+        return table;
+    }
+}
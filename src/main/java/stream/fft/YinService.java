@@ -0,0 +1,143 @@
+package stream.fft;
+
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.Detection;
+import stream.model.PitchTable;
+import stream.model.SampleChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Monophonic engine estimating the fundamental of a short frame in the time
+ * domain with the YIN algorithm, for chunks at the source rate.
+ * <p>
+ * Only the newest SEGMENT samples of a chunk are used: the difference function
+ * compares the first WINDOW of them with the same length shifted by every lag up
+ * to WINDOW, so a hop of WINDOW samples analyzes each sample once. The products
+ * of the difference function come from one cross-correlation, computed as a
+ * circular convolution through a complex FFT carrying both sequences. The first
+ * dip of the cumulative mean normalized difference below THRESHOLD gives the
+ * period, refined by parabolic interpolation, and the frequency is reported with
+ * the nearest note of the current {@link PitchTable}.
+ * <p>
+ * The power is the magnitude the FFT engines would give a sine of the level of
+ * the frame, so the same threshold applies. The buffers are reused from one
+ * chunk to the next, so an instance must not be shared between threads.
+ */
+public class YinService implements DetectionEngine {
+
+    // samples integrated by the difference function, also the longest lag
+    public static final int WINDOW = 1024;
+    static final int SEGMENT = 2 * WINDOW;
+    // cumulative mean normalized difference below which a dip is a period
+    static final double THRESHOLD = 0.15;
+
+    private final InPlaceFFT fft = InPlaceFFT.of(SEGMENT);
+    private final double[] samples = new double[SEGMENT];
+    // prefix sums of the squared samples
+    private final double[] energies = new double[SEGMENT + 1];
+    private final double[] re = new double[SEGMENT];
+    private final double[] im = new double[SEGMENT];
+    private final double[] productRe = new double[SEGMENT];
+    private final double[] productIm = new double[SEGMENT];
+    private final double[] difference = new double[WINDOW];
+    private final NoteTable noteTable = new NoteTable(PitchTable.current());
+
+    @Override
+    public List<Detection> detect(final SampleChunk sampleChunk, final double powerThreshold) {
+        final List<Detection> detections = new ArrayList<>(1);
+        this.load(sampleChunk);
+        final double power = Math.sqrt(2 * this.energies[WINDOW] / WINDOW) * BUFFER_SIZE / 2;
+        if (power <= powerThreshold) {
+            return detections;
+        }
+        final float sampleRate = sampleChunk.getSampleRate();
+        final long start = Metrics.start();
+        this.correlate();
+        Metrics.record(Stage.TRANSFORM, start);
+        final double period = this.period(sampleRate);
+        if (period > 0) {
+            final double frequency = sampleRate / period;
+            final int note = this.noteTable.nearest(frequency);
+            if (note >= 0) {
+                detections.add(new Detection(sampleChunk.getStartTime() + (BUFFER_SIZE - SEGMENT) / sampleRate,
+                        this.noteTable.note(note), this.noteTable.musicalRange(note), this.noteTable.octave(note), frequency, power));
+            }
+        }
+        return detections;
+    }
+
+    private void load(final SampleChunk sampleChunk) {
+        final short[] inputs = sampleChunk.getChannelBytes();
+        final int start = sampleChunk.getOffset() + BUFFER_SIZE - SEGMENT;
+        final int available = Math.max(0, Math.min(SEGMENT, inputs.length - start));
+        for (int i = 0; i < SEGMENT; i++) {
+            final double sample = i < available ? inputs[start + i] / (double) Short.MAX_VALUE : 0;
+            this.samples[i] = sample;
+            this.energies[i + 1] = this.energies[i] + sample * sample;
+        }
+    }
+
+    // products of the window with the segment at every lag below WINDOW into productRe
+    private void correlate() {
+        // the window, padded with zeros, in the real part and the segment in the imaginary part
+        for (int i = 0; i < SEGMENT; i++) {
+            this.re[i] = i < WINDOW ? this.samples[i] : 0;
+            this.im[i] = this.samples[i];
+        }
+        this.fft.fft(this.re, this.im);
+        // separate the two spectra by Hermitian symmetry and multiply the conjugate of the first by the second
+        for (int k = 0; k < SEGMENT; k++) {
+            final int m = (SEGMENT - k) & (SEGMENT - 1);
+            final double windowRe = (this.re[k] + this.re[m]) / 2;
+            final double windowIm = (this.im[k] - this.im[m]) / 2;
+            final double segmentRe = (this.im[k] + this.im[m]) / 2;
+            final double segmentIm = (this.re[m] - this.re[k]) / 2;
+            this.productRe[k] = windowRe * segmentRe + windowIm * segmentIm;
+            this.productIm[k] = windowRe * segmentIm - windowIm * segmentRe;
+        }
+        // no wrap around, the lags stay below SEGMENT - WINDOW
+        this.fft.ifft(this.productRe, this.productIm);
+    }
+
+    // period in samples, 0 if the frame has none in the range of the note table
+    private double period(final float sampleRate) {
+        final double highest = this.noteTable.frequency(this.noteTable.size() - 1);
+        final double lowest = this.noteTable.frequency(0);
+        final int minLag = Math.max(2, (int) (sampleRate / highest / 1.03));
+        final int maxLag = Math.min(WINDOW - 2, (int) Math.ceil(sampleRate / lowest * 1.03));
+
+        // cumulative mean normalized difference, stored in place of the difference
+        double sum = 0;
+        this.difference[0] = 1;
+        for (int lag = 1; lag <= maxLag + 1; lag++) {
+            final double shifted = this.energies[lag + WINDOW] - this.energies[lag];
+            final double difference = Math.max(0, this.energies[WINDOW] + shifted - 2 * this.productRe[lag]);
+            sum += difference;
+            this.difference[lag] = sum > 0 ? difference * lag / sum : 1;
+        }
+
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            if (this.difference[lag] < THRESHOLD) {
+                while (lag < maxLag && this.difference[lag + 1] < this.difference[lag]) {
+                    lag++;
+                }
+                return lag + this.shift(lag);
+            }
+        }
+        return 0;
+    }
+
+    // offset of the vertex of the parabola through the lag and its neighbours
+    private double shift(final int lag) {
+        final double previous = this.difference[lag - 1];
+        final double current = this.difference[lag];
+        final double next = this.difference[lag + 1];
+        final double denominator = previous - 2 * current + next;
+        return denominator > 0 ? (previous - next) / (2 * denominator) : 0;
+    }
+}
@@ -0,0 +1,25 @@
+package stream.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals kept by {@link Metrics}.
+ */
+public enum Counter {
+    // bytes of source audio read
+    BYTES,
+    // chunks analyzed
+    CHUNKS,
+    // detections handed to the sink
+    DETECTIONS;
+
+    private final LongAdder value = new LongAdder();
+
+    void add(final long delta) {
+        this.value.add(delta);
+    }
+
+    public long get() {
+        return this.value.sum();
+    }
+}
@@ -0,0 +1,93 @@
+package stream.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of durations in nanoseconds, in the manner of HdrHistogram:
+ * every power of two is split in SUB_BUCKETS / 2 buckets, so a recorded value is
+ * known within 1 / 16 of itself whatever its magnitude, in a fixed array.
+ * Recording is lock free and can happen from any thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+    // values below SUB_BUCKETS have a bucket each, then HALF buckets per power of two up to 2^63
+    private static final int BUCKETS = SUB_BUCKETS + HALF * (Long.SIZE - SUB_BITS);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        this.counts.incrementAndGet(index(value));
+        this.count.increment();
+        this.total.add(value);
+        if (value > this.max.get()) {
+            this.max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    static int index(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return HALF * shift + (int) (value >>> shift);
+    }
+
+    // largest value falling in the bucket
+    static long highestValue(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / HALF - 1;
+        final long sub = index - (long) HALF * shift;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    public long getMeanNanos() {
+        final long count = this.count.sum();
+        return count != 0 ? this.total.sum() / count : 0;
+    }
+
+    public long getMaxNanos() {
+        return this.max.get();
+    }
+
+    // smallest bucket bound below which percentile % of the values fall, never above the maximum
+    public long getPercentileNanos(final double percentile) {
+        long remaining = (long) Math.ceil(percentile / 100 * this.count.sum());
+        if (remaining <= 0) {
+            return 0;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            remaining -= this.counts.get(i);
+            if (remaining <= 0) {
+                return Math.min(highestValue(i), this.max.get());
+            }
+        }
+        return this.max.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "count %d, mean %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms", this.getCount(),
+                millis(this.getMeanNanos()), millis(this.getPercentileNanos(50)), millis(this.getPercentileNanos(99)), millis(this.getMaxNanos()));
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,133 @@
+package stream.metrics;
+
+import stream.bus.SampleQueue;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timings, counters and queue depths of the pipeline stages.
+ * <p>
+ * Disabled by default: {@link #start()} then returns 0 without reading the clock
+ * and every record is a single volatile read, so the instrumented loops cost
+ * nothing measurable. Once {@link #enable() enabled}, a timed section is
+ * <pre>
+ *     final long start = Metrics.start();
+ *     ...
+ *     Metrics.record(Stage.DETECT, start);
+ * </pre>
+ * Queues are watched while a worker consumes them, their summed depth is a gauge.
+ */
+public final class Metrics {
+
+    private static final Set<SampleQueue<?>> QUEUES = ConcurrentHashMap.newKeySet();
+    private static volatile boolean enabled;
+
+    private Metrics() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    // start of a timed section, 0 when disabled
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // time elapsed since start, a System.nanoTime() value, ignored when start is 0 or metrics are disabled
+    public static void record(final Stage stage, final long start) {
+        if (enabled && start != 0) {
+            stage.getHistogram().record(System.nanoTime() - start);
+        }
+    }
+
+    public static void count(final Counter counter, final long delta) {
+        if (enabled) {
+            counter.add(delta);
+        }
+    }
+
+    public static void watch(final SampleQueue<?> sampleQueue) {
+        if (enabled) {
+            QUEUES.add(sampleQueue);
+        }
+    }
+
+    public static void unwatch(final SampleQueue<?> sampleQueue) {
+        QUEUES.remove(sampleQueue);
+    }
+
+    public static int getQueueDepth() {
+        int depth = 0;
+        for (final SampleQueue<?> sampleQueue : QUEUES) {
+            depth += sampleQueue.size();
+        }
+        return depth;
+    }
+
+    public static int getQueueCapacity() {
+        int capacity = 0;
+        for (final SampleQueue<?> sampleQueue : QUEUES) {
+            capacity += sampleQueue.capacity();
+        }
+        return capacity;
+    }
+
+    // publish the counters as stream:type=Metrics and each stage as stream:type=Stage,name=...
+    public static void registerMBeans() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new MetricsBean(), new ObjectName("stream:type=Metrics"));
+        for (final Stage stage : Stage.values()) {
+            server.registerMBean(stage, new ObjectName("stream:type=Stage,name=" + stage.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    // one line per stage and one for the counters
+    public static String report() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (final Stage stage : Stage.values()) {
+            stringBuilder.append(String.format("%-10s ", stage.name().toLowerCase(Locale.ROOT))).append(stage.getHistogram()).append('\n');
+        }
+        stringBuilder.append(String.format(Locale.ROOT, "bytes %d, chunks %d, detections %d, queue %d/%d", Counter.BYTES.get(),
+                Counter.CHUNKS.get(), Counter.DETECTIONS.get(), getQueueDepth(), getQueueCapacity()));
+        return stringBuilder.toString();
+    }
+
+    private static final class MetricsBean implements MetricsMXBean {
+
+        @Override
+        public long getBytes() {
+            return Counter.BYTES.get();
+        }
+
+        @Override
+        public long getChunks() {
+            return Counter.CHUNKS.get();
+        }
+
+        @Override
+        public long getDetections() {
+            return Counter.DETECTIONS.get();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return Metrics.getQueueDepth();
+        }
+
+        @Override
+        public int getQueueCapacity() {
+            return Metrics.getQueueCapacity();
+        }
+    }
+}
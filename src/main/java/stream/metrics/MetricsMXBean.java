@@ -0,0 +1,17 @@
+package stream.metrics;
+
+/**
+ * Counters and queue gauges of {@link Metrics}, as seen over JMX.
+ */
+public interface MetricsMXBean {
+
+    long getBytes();
+
+    long getChunks();
+
+    long getDetections();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+}
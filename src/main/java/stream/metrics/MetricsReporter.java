@@ -0,0 +1,35 @@
+package stream.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the {@link Metrics#report() report} every period from a daemon thread,
+ * and a last time when closed.
+ */
+public class MetricsReporter implements AutoCloseable {
+
+    private final PrintStream printStream;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MetricsReporter(final PrintStream printStream, final long period, final TimeUnit unit) {
+        this.printStream = printStream;
+        this.executor.scheduleAtFixedRate(this::print, period, period, unit);
+    }
+
+    private void print() {
+        this.printStream.println(Metrics.report());
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdownNow();
+        this.print();
+    }
+}
@@ -0,0 +1,52 @@
+package stream.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steps of the pipeline timed by {@link Metrics}, each with its histogram.
+ */
+public enum Stage implements StageMXBean {
+    // reading and decoding a block of source samples
+    DECODE,
+    // resampling a block for a musical range and cutting it into chunks
+    RESAMPLE,
+    // from the moment a chunk is cut to the moment a worker takes it
+    QUEUE_WAIT,
+    // the transform of a chunk, part of its detection
+    TRANSFORM,
+    // a whole call to the detection engine for a chunk
+    DETECT,
+    // handing a detection to the sink
+    SINK;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public LatencyHistogram getHistogram() {
+        return this.histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return this.histogram.getCount();
+    }
+
+    @Override
+    public long getMeanMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.histogram.getMeanNanos());
+    }
+
+    @Override
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.histogram.getPercentileNanos(50));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.histogram.getPercentileNanos(99));
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.histogram.getMaxNanos());
+    }
+}
@@ -0,0 +1,17 @@
+package stream.metrics;
+
+/**
+ * Durations recorded for a {@link Stage}, in microseconds, as seen over JMX.
+ */
+public interface StageMXBean {
+
+    long getCount();
+
+    long getMeanMicros();
+
+    long getP50Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+}
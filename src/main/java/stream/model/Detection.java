@@ -1,14 +1,33 @@
 package stream.model;
 
+import java.util.Comparator;
+
 public class Detection {
+
+    // chunks of a same instant can be produced in any order, frequency keeps the output stable
+    public static final Comparator<Detection> BY_START_TIME = Comparator
+            .comparingDouble(Detection::getStartTime)
+            .thenComparingDouble(Detection::getFrequency);
+
     private final float startTime;
     private final String note;
+    // null when only the label is known, as for detections read back from a binary output
+    private final MusicalRange musicalRange;
+    private final int octave;
     private final double frequency;
     private final double power;
 
     public Detection(final float startTime, final String note, final double frequency, final double power) {
+        this(startTime, note, null, 0, frequency, power);
+    }
+
+    // note is the label of the octave of musicalRange, passed in so engines can reuse the labels of their tables
+    public Detection(final float startTime, final String note, final MusicalRange musicalRange, final int octave,
+                     final double frequency, final double power) {
         this.startTime = startTime;
         this.note = note;
+        this.musicalRange = musicalRange;
+        this.octave = octave;
         this.frequency = frequency;
         this.power = power;
     }
@@ -21,6 +40,14 @@ public class Detection {
         return this.note;
     }
 
+    public MusicalRange getMusicalRange() {
+        return this.musicalRange;
+    }
+
+    public int getOctave() {
+        return this.octave;
+    }
+
     public double getPower() {
         return this.power;
     }
@@ -0,0 +1,88 @@
+package stream.model;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Frequencies of the musical ranges, generated from a reference pitch, a tuning
+ * and the transform size instead of being written by hand.
+ * <p>
+ * A range covers the octaves of one pitch class: harmonic i of its base index
+ * falls on the pitch class in octave i + 1. The range is resampled so that its
+ * octave 1 frequency lands exactly on the base index, hence a bin step of
+ * {@code frequency / baseIndex} and a sample rate of {@code fftSize} bin steps.
+ * Everything is computed once in the constructor.
+ * <p>
+ * The pipeline reads {@link #current()}, which can be replaced at startup before
+ * any reader or engine is created.
+ */
+public final class PitchTable {
+
+    public static final double DEFAULT_REFERENCE = 440;
+    public static final int DEFAULT_BASE_INDEX = 11;
+    private static final int REFERENCE_OCTAVE = 4;
+    private static final int A = 9;
+
+    private static volatile PitchTable current = new PitchTable(DEFAULT_REFERENCE, Tuning.EQUAL, BUFFER_SIZE, DEFAULT_BASE_INDEX);
+
+    private final double reference;
+    private final Tuning tuning;
+    private final int fftSize;
+    private final int baseIndex;
+    private final double[] baseFrequencies = new double[MusicalRange.values().length];
+    private final double[] binSteps = new double[MusicalRange.values().length];
+
+    // reference is the frequency of A4
+    public PitchTable(final double reference, final Tuning tuning, final int fftSize, final int baseIndex) {
+        if (reference <= 0 || fftSize <= 0 || baseIndex <= 0) {
+            throw new IllegalArgumentException("Reference, FFT size and base index must be positive");
+        }
+        this.reference = reference;
+        this.tuning = tuning;
+        this.fftSize = fftSize;
+        this.baseIndex = baseIndex;
+        final double c4 = reference / tuning.ratio(A);
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            final double baseFrequency = c4 * tuning.ratio(musicalRange.ordinal()) / (1 << (REFERENCE_OCTAVE - 1));
+            this.baseFrequencies[musicalRange.ordinal()] = baseFrequency;
+            this.binSteps[musicalRange.ordinal()] = baseFrequency / baseIndex;
+        }
+    }
+
+    public static PitchTable current() {
+        return current;
+    }
+
+    public static void setCurrent(final PitchTable pitchTable) {
+        current = pitchTable;
+    }
+
+    public double getReference() {
+        return this.reference;
+    }
+
+    public Tuning getTuning() {
+        return this.tuning;
+    }
+
+    public int getFftSize() {
+        return this.fftSize;
+    }
+
+    public int getBaseIndex() {
+        return this.baseIndex;
+    }
+
+    // frequency of the pitch class in octave 1, on the base index
+    public double getBaseFrequency(final MusicalRange musicalRange) {
+        return this.baseFrequencies[musicalRange.ordinal()];
+    }
+
+    // width of a bin of the transform once the range is resampled
+    public double getBinStep(final MusicalRange musicalRange) {
+        return this.binSteps[musicalRange.ordinal()];
+    }
+
+    public float getSampleRate(final MusicalRange musicalRange) {
+        return (float) (this.binSteps[musicalRange.ordinal()] * this.fftSize);
+    }
+}
@@ -1,22 +1,53 @@
 package stream.model;
 
+import stream.bus.PooledBuffer;
+
+/**
+ * Samples of one channel over BUFFER_SIZE frames, starting at {@link #getOffset()}
+ * in {@link #getChannelBytes()}. Overlapping chunks are views on the same array.
+ * <p>
+ * When the samples come from a {@link PooledBuffer}, the chunk holds one reference
+ * on it: every extra holder calls {@link #retain()}, each holder calls
+ * {@link #release()} once done, and the samples must not be read after that.
+ * <p>
+ * {@link #getCaptureTime()} is the {@link System#nanoTime()} at which the chunk
+ * was cut, that is when its last sample came in, the origin of latency figures.
+ */
 public class SampleChunk {
 
     private final int channelNumber;
     private final short[] channelBytes;
+    private final int offset;
     private final float sampleRate;
     private final MusicalRange musicalRange;
     private final float startTime;
     private final float endTime;
+    private final PooledBuffer pooledBuffer;
+    private final long captureTime = System.nanoTime();
 
     public SampleChunk(final int channelNumber, final short[] channelBytes, final float sampleRate, final MusicalRange musicalRange,
                        final float startTime, final float endTime) {
         this.channelNumber = channelNumber;
         this.channelBytes = channelBytes;
+        this.offset = 0;
+        this.sampleRate = sampleRate;
+        this.musicalRange = musicalRange;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.pooledBuffer = null;
+    }
+
+    // takes over one reference on pooledBuffer, the caller retains it beforehand if it keeps using it
+    public SampleChunk(final int channelNumber, final PooledBuffer pooledBuffer, final int offset, final float sampleRate,
+                       final MusicalRange musicalRange, final float startTime, final float endTime) {
+        this.channelNumber = channelNumber;
+        this.channelBytes = pooledBuffer.getSamples();
+        this.offset = offset;
         this.sampleRate = sampleRate;
         this.musicalRange = musicalRange;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.pooledBuffer = pooledBuffer;
     }
 
     public int getChannelNumber() {
@@ -27,6 +58,10 @@ public class SampleChunk {
         return this.channelBytes;
     }
 
+    public int getOffset() {
+        return this.offset;
+    }
+
     public float getSampleRate() {
         return this.sampleRate;
     }
@@ -42,4 +77,21 @@ public class SampleChunk {
     public float getEndTime() {
         return this.endTime;
     }
+
+    public long getCaptureTime() {
+        return this.captureTime;
+    }
+
+    public SampleChunk retain() {
+        if (this.pooledBuffer != null) {
+            this.pooledBuffer.retain();
+        }
+        return this;
+    }
+
+    public void release() {
+        if (this.pooledBuffer != null) {
+            this.pooledBuffer.release();
+        }
+    }
 }
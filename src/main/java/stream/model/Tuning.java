@@ -0,0 +1,23 @@
+package stream.model;
+
+/**
+ * Frequency ratios of the twelve pitch classes to C within an octave.
+ */
+public enum Tuning {
+    EQUAL(null),
+    // 5-limit just intonation
+    JUST(new double[]{1, 16 / 15.0, 9 / 8.0, 6 / 5.0, 5 / 4.0, 4 / 3.0, 45 / 32.0, 3 / 2.0, 8 / 5.0, 5 / 3.0, 9 / 5.0, 15 / 8.0}),
+    PYTHAGOREAN(new double[]{1, 256 / 243.0, 9 / 8.0, 32 / 27.0, 81 / 64.0, 4 / 3.0, 729 / 512.0, 3 / 2.0, 128 / 81.0, 27 / 16.0,
+            16 / 9.0, 243 / 128.0});
+
+    private final double[] ratios;
+
+    Tuning(final double[] ratios) {
+        this.ratios = ratios;
+    }
+
+    // ratio of the pitch class semitones above C, from 0 to 11, to C
+    public double ratio(final int semitone) {
+        return this.ratios == null ? Math.pow(2, semitone / 12.0) : this.ratios[semitone];
+    }
+}
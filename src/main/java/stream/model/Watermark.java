@@ -0,0 +1,18 @@
+package stream.model;
+
+/**
+ * Queue marker pushed by a reader: every chunk starting before {@link #getTime()}
+ * has been pushed ahead of it, so detections before that time are final.
+ */
+public class Watermark {
+
+    private final float time;
+
+    public Watermark(final float time) {
+        this.time = time;
+    }
+
+    public float getTime() {
+        return this.time;
+    }
+}
@@ -0,0 +1,55 @@
+package stream.prepare;
+
+import stream.fft.DetectionEngine;
+import stream.model.Detection;
+import stream.model.SampleChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs detection on a slice of chunks, splitting it in halves until it is small
+ * enough so idle workers of the pool can steal the other half.
+ * Engines are not thread safe, each worker thread gets its own.
+ * Chunks are released once analyzed.
+ */
+class DetectionTask extends RecursiveTask<List<Detection>> {
+
+    private static final int LEAF_SIZE = 8;
+
+    private final List<SampleChunk> chunks;
+    private final ThreadLocal<DetectionEngine> detectionEngines;
+    private final double powerThreshold;
+
+    DetectionTask(final List<SampleChunk> chunks, final ThreadLocal<DetectionEngine> detectionEngines, final double powerThreshold) {
+        this.chunks = chunks;
+        this.detectionEngines = detectionEngines;
+        this.powerThreshold = powerThreshold;
+    }
+
+    @Override
+    protected List<Detection> compute() {
+        if (this.chunks.size() <= LEAF_SIZE) {
+            final DetectionEngine detectionEngine = this.detectionEngines.get();
+            final List<Detection> detections = new ArrayList<>();
+            for (final SampleChunk chunk : this.chunks) {
+                try {
+                    detections.addAll(PrepareWorker.detect(detectionEngine, chunk, this.powerThreshold));
+                } finally {
+                    chunk.release();
+                }
+            }
+            return detections;
+        }
+        final int middle = this.chunks.size() / 2;
+        final DetectionTask left = new DetectionTask(this.chunks.subList(0, middle), this.detectionEngines, this.powerThreshold);
+        final DetectionTask right = new DetectionTask(this.chunks.subList(middle, this.chunks.size()), this.detectionEngines, this.powerThreshold);
+        left.fork();
+        final List<Detection> rightDetections = right.compute();
+        // left first, the sink keeps the arrival order of detections with the same start time
+        final List<Detection> detections = left.join();
+        detections.addAll(rightDetections);
+        return detections;
+    }
+}
@@ -0,0 +1,122 @@
+package stream.prepare;
+
+import stream.bus.SampleQueue;
+import stream.fft.DetectionEngine;
+import stream.metrics.LatencyHistogram;
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.Detection;
+import stream.model.SampleChunk;
+import stream.sink.DetectionSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static stream.prepare.PrepareWorker.POWER_THRESHOLD;
+
+/**
+ * Consumer of a live queue: detections are handed to the listener as soon as
+ * each chunk is analyzed instead of being collected and sorted at the end.
+ * <p>
+ * Each of the parallelism threads takes chunks from the queue with its own
+ * engine, so there is no batching delay. A chunk older than maxLatency when
+ * taken is released without analysis, which lets the workers catch up with
+ * the capture instead of falling further behind. The listener is called from
+ * every worker thread, detections of different chunks may come in any order.
+ */
+public class LiveWorker implements Runnable {
+
+    private final Supplier<DetectionEngine> detectionEngineFactory;
+    private final SampleQueue<?> sampleQueue;
+    private final int parallelism;
+    private final long maxLatencyNanos;
+    private final double powerThreshold;
+    private final Consumer<Detection> listener;
+    // capture to detection latency of the chunks analyzed
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder staleChunks = new LongAdder();
+
+    public LiveWorker(final Supplier<DetectionEngine> detectionEngineFactory, final SampleQueue<?> sampleQueue, final int parallelism,
+                      final long maxLatencyNanos, final Consumer<Detection> listener) {
+        this(detectionEngineFactory, sampleQueue, parallelism, maxLatencyNanos, POWER_THRESHOLD, listener);
+    }
+
+    public LiveWorker(final Supplier<DetectionEngine> detectionEngineFactory, final SampleQueue<?> sampleQueue, final int parallelism,
+                      final long maxLatencyNanos, final double powerThreshold, final Consumer<Detection> listener) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.detectionEngineFactory = detectionEngineFactory;
+        this.sampleQueue = sampleQueue;
+        this.parallelism = parallelism;
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.powerThreshold = powerThreshold;
+        // timed and counted like a sink
+        final DetectionSink timed = PrepareWorker.timed(listener::accept);
+        this.listener = Metrics.isEnabled() ? timed::accept : listener;
+    }
+
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    }
+
+    // chunks skipped because they were already too old when taken
+    public long getStaleChunks() {
+        return this.staleChunks.sum();
+    }
+
+    // returns once the queue is drained, the calling thread is one of the workers
+    @Override
+    public void run() {
+        Metrics.watch(this.sampleQueue);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i < this.parallelism; i++) {
+            final Thread thread = new Thread(this::consume, "live-worker-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+        this.consume();
+        try {
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Metrics.unwatch(this.sampleQueue);
+        }
+    }
+
+    private void consume() {
+        final DetectionEngine detectionEngine = this.detectionEngineFactory.get();
+        try {
+            Object t;
+            while ((t = this.sampleQueue.take()) != null) {
+                if (t instanceof SampleChunk) {
+                    Metrics.record(Stage.QUEUE_WAIT, ((SampleChunk) t).getCaptureTime());
+                    this.analyze(detectionEngine, (SampleChunk) t);
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void analyze(final DetectionEngine detectionEngine, final SampleChunk chunk) {
+        final List<Detection> detections;
+        try {
+            if (System.nanoTime() - chunk.getCaptureTime() > this.maxLatencyNanos) {
+                this.staleChunks.increment();
+                return;
+            }
+            detections = PrepareWorker.detect(detectionEngine, chunk, this.powerThreshold);
+            this.latency.record(System.nanoTime() - chunk.getCaptureTime());
+        } finally {
+            chunk.release();
+        }
+        detections.forEach(this.listener);
+    }
+}
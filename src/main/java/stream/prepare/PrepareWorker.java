@@ -1,35 +1,212 @@
 package stream.prepare;
 
 import stream.bus.SampleQueue;
-import stream.fft.FFTService;
+import stream.fft.DetectionEngine;
+import stream.metrics.Counter;
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
 import stream.model.Detection;
 import stream.model.SampleChunk;
+import stream.model.Watermark;
+import stream.sink.DetectionSink;
+import stream.sink.ReorderingSink;
+import stream.sink.TextSink;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
+/**
+ * Consumes the queue until it is drained and streams the detections to a sink
+ * in start time order. Detections are held in a {@link ReorderingSink} only
+ * until the {@link Watermark} pushed by the reader has gone past them.
+ */
 public class PrepareWorker<T> implements Runnable {
 
     public static final int POWER_THRESHOLD = 100;
-    private final FFTService fftService;
+    private static final int BATCH_SIZE = 16;
+    private final Supplier<DetectionEngine> detectionEngineFactory;
     private final SampleQueue<T> sampleQueue;
+    private final int parallelism;
+    private final DetectionSink detectionSink;
+    private final double powerThreshold;
 
-    public PrepareWorker(final FFTService fftService, final SampleQueue sampleQueue) {
-        this.fftService = fftService;
+    public PrepareWorker(final DetectionEngine detectionEngine, final SampleQueue sampleQueue) {
+        this(() -> detectionEngine, sampleQueue, 1);
+    }
+
+    public PrepareWorker(final Supplier<DetectionEngine> detectionEngineFactory, final SampleQueue sampleQueue, final int parallelism) {
+        this(detectionEngineFactory, sampleQueue, parallelism, new TextSink(System.out));
+    }
+
+    public PrepareWorker(final Supplier<DetectionEngine> detectionEngineFactory, final SampleQueue sampleQueue, final int parallelism,
+                         final DetectionSink detectionSink) {
+        this(detectionEngineFactory, sampleQueue, parallelism, detectionSink, POWER_THRESHOLD);
+    }
+
+    public PrepareWorker(final Supplier<DetectionEngine> detectionEngineFactory, final SampleQueue sampleQueue, final int parallelism,
+                         final DetectionSink detectionSink, final double powerThreshold) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.detectionEngineFactory = detectionEngineFactory;
         this.sampleQueue = sampleQueue;
+        this.parallelism = parallelism;
+        this.detectionSink = detectionSink;
+        this.powerThreshold = powerThreshold;
     }
 
+    // the sink is flushed, closing it is left to its owner
     @Override
     public void run() {
+        try {
+            this.process(this.detectionSink);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // consume the queue until it is drained and return the detections in start time order
+    public List<Detection> collect() throws InterruptedException {
         final List<Detection> detections = new ArrayList<>();
-        while (!this.sampleQueue.isEmpty()) {
-            final T t = this.sampleQueue.get();
+        this.process(detections::add);
+        return detections;
+    }
+
+    // consume the queue until it is drained, passing the detections to sink in start time order
+    public void process(final DetectionSink sink) throws InterruptedException {
+        final ReorderingSink reorderingSink = new ReorderingSink(Metrics.isEnabled() ? timed(sink) : sink);
+        Metrics.watch(this.sampleQueue);
+        try {
+            if (this.parallelism == 1) {
+                this.detectSerially(reorderingSink);
+            } else {
+                this.detectInParallel(reorderingSink);
+            }
+        } finally {
+            Metrics.unwatch(this.sampleQueue);
+        }
+        reorderingSink.drain();
+        sink.flush();
+    }
+
+    // counts and times what is passed to sink, flushing and closing are left to the caller
+    static DetectionSink timed(final DetectionSink sink) {
+        return detection -> {
+            final long start = Metrics.start();
+            sink.accept(detection);
+            Metrics.record(Stage.SINK, start);
+            Metrics.count(Counter.DETECTIONS, 1);
+        };
+    }
+
+    // run the engine on a chunk, timed and counted
+    static List<Detection> detect(final DetectionEngine detectionEngine, final SampleChunk chunk, final double powerThreshold) {
+        final long start = Metrics.start();
+        final List<Detection> detections = detectionEngine.detect(chunk, powerThreshold);
+        Metrics.record(Stage.DETECT, start);
+        Metrics.count(Counter.CHUNKS, 1);
+        return detections;
+    }
+
+    private void detectSerially(final ReorderingSink reorderingSink) throws InterruptedException {
+        final DetectionEngine detectionEngine = this.detectionEngineFactory.get();
+        T t;
+        while ((t = this.sampleQueue.take()) != null) {
             if (t instanceof SampleChunk) {
-                detections.addAll(this.fftService.detectWithFFT((SampleChunk) t, POWER_THRESHOLD));
+                final SampleChunk chunk = (SampleChunk) t;
+                Metrics.record(Stage.QUEUE_WAIT, chunk.getCaptureTime());
+                try {
+                    detect(detectionEngine, chunk, this.powerThreshold).forEach(reorderingSink::accept);
+                } finally {
+                    chunk.release();
+                }
+            } else if (t instanceof Watermark) {
+                reorderingSink.advance(((Watermark) t).getTime());
+            }
+        }
+    }
+
+    // chunks of different ranges and channels are independent, batches are put back in queue order
+    // with the watermarks that followed them before being passed on
+    private void detectInParallel(final ReorderingSink reorderingSink) throws InterruptedException {
+        final ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        // bound the batches waiting in the pool, otherwise the queue backpressure is lost
+        final Semaphore inFlight = new Semaphore(2 * this.parallelism);
+        final ThreadLocal<DetectionEngine> detectionEngines = ThreadLocal.withInitial(this.detectionEngineFactory);
+        // futures of the batches and watermarks, in queue order
+        final Deque<Object> pending = new ArrayDeque<>();
+        try {
+            List<SampleChunk> batch = new ArrayList<>(BATCH_SIZE);
+            // a watermark seen while a batch fills must wait for that batch
+            Watermark deferred = null;
+            T t;
+            while ((t = this.sampleQueue.take()) != null) {
+                if (t instanceof SampleChunk) {
+                    Metrics.record(Stage.QUEUE_WAIT, ((SampleChunk) t).getCaptureTime());
+                    batch.add((SampleChunk) t);
+                } else if (t instanceof Watermark) {
+                    if (batch.isEmpty()) {
+                        pending.add(t);
+                    } else {
+                        deferred = (Watermark) t;
+                    }
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    pending.add(this.submit(pool, inFlight, new DetectionTask(batch, detectionEngines, this.powerThreshold)));
+                    if (deferred != null) {
+                        pending.add(deferred);
+                        deferred = null;
+                    }
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    this.passOn(pending, reorderingSink, false);
+                }
             }
+            if (!batch.isEmpty()) {
+                pending.add(this.submit(pool, inFlight, new DetectionTask(batch, detectionEngines, this.powerThreshold)));
+            }
+            this.passOn(pending, reorderingSink, true);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // hand the results of the completed head batches to the sink, waiting for all of them if asked
+    @SuppressWarnings("unchecked")
+    private void passOn(final Deque<Object> pending, final ReorderingSink reorderingSink, final boolean wait)
+            throws InterruptedException, ExecutionException {
+        while (!pending.isEmpty()) {
+            final Object head = pending.peek();
+            if (head instanceof Watermark) {
+                reorderingSink.advance(((Watermark) head).getTime());
+            } else {
+                final Future<List<Detection>> result = (Future<List<Detection>>) head;
+                if (!wait && !result.isDone()) {
+                    return;
+                }
+                result.get().forEach(reorderingSink::accept);
+            }
+            pending.poll();
         }
-        detections.stream()
-                .sorted((a, b) -> Float.compare(a.getStartTime(), b.getStartTime()))
-                .forEach(d -> this.fftService.displayDetection(d));
+    }
+
+    private Future<List<Detection>> submit(final ForkJoinPool pool, final Semaphore inFlight, final DetectionTask task)
+            throws InterruptedException {
+        inFlight.acquire();
+        return pool.submit(() -> {
+            try {
+                return task.invoke();
+            } finally {
+                inFlight.release();
+            }
+        });
     }
 }
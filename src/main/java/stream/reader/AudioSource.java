@@ -0,0 +1,22 @@
+package stream.reader;
+
+/**
+ * Random access to the samples of an input, channel by channel.
+ * Reads do not change any state, several range passes read the same source
+ * concurrently.
+ */
+public interface AudioSource extends AutoCloseable {
+
+    float getSampleRate();
+
+    int getChannelNumber();
+
+    long getFrameLength();
+
+    // copy up to length samples of a channel starting at frame position into dst, return the number copied
+    int read(int channelIndex, long position, float[] dst, int length);
+
+    @Override
+    default void close() {
+    }
+}
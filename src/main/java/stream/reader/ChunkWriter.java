@@ -0,0 +1,156 @@
+package stream.reader;
+
+import stream.bus.BufferPool;
+import stream.bus.PooledBuffer;
+import stream.bus.SampleQueue;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.Arrays;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Cuts the resampled samples of one channel into chunks of BUFFER_SIZE samples,
+ * one every hop samples, and pushes them to the queue.
+ * <p>
+ * Samples are written once in a strip taken from the pool, large enough to hold
+ * several overlapping chunks which are only views on it. When a strip is full,
+ * the overlap still needed by the next chunks is carried to a new strip, so a
+ * sample is copied at most once whatever the hop. The strip goes back to the
+ * pool when the last chunk cut from it is released by the consumer. The last
+ * chunk is padded with zeros.
+ * <p>
+ * A live source cannot be held back, so instead of waiting for room when the
+ * queue is full, a writer created with {@code dropOldest} discards the oldest
+ * queued chunk to make room for the new one.
+ */
+class ChunkWriter {
+
+    private final int channelNumber;
+    private final float sampleRate;
+    private final MusicalRange musicalRange;
+    private final SampleQueue sampleQueue;
+    private final BufferPool bufferPool;
+    private final int hop;
+    private final int chunksPerStrip;
+    private final boolean dropOldest;
+    private PooledBuffer strip;
+    private int filled;
+    private int nextOffset;
+    // end of the last chunk pushed, relative to the current strip
+    private int pushedEnd;
+    private long chunkIndex;
+    private long dropped;
+
+    ChunkWriter(final int channelNumber, final float sampleRate, final MusicalRange musicalRange, final SampleQueue sampleQueue,
+                final BufferPool bufferPool, final int hop) {
+        this(channelNumber, sampleRate, musicalRange, sampleQueue, bufferPool, hop, false);
+    }
+
+    ChunkWriter(final int channelNumber, final float sampleRate, final MusicalRange musicalRange, final SampleQueue sampleQueue,
+                final BufferPool bufferPool, final int hop, final boolean dropOldest) {
+        if (hop < 1 || hop > BUFFER_SIZE) {
+            throw new IllegalArgumentException("hop must be between 1 and " + BUFFER_SIZE);
+        }
+        if (bufferPool.getBufferSize() < BUFFER_SIZE) {
+            throw new IllegalArgumentException("Pool buffers are shorter than a chunk");
+        }
+        this.channelNumber = channelNumber;
+        this.sampleRate = sampleRate;
+        this.musicalRange = musicalRange;
+        this.sampleQueue = sampleQueue;
+        this.bufferPool = bufferPool;
+        this.hop = hop;
+        this.chunksPerStrip = (bufferPool.getBufferSize() - BUFFER_SIZE) / hop + 1;
+        this.dropOldest = dropOldest;
+    }
+
+    // chunks discarded to make room in a full queue, always 0 without dropOldest
+    long getDropped() {
+        return this.dropped;
+    }
+
+    // strip length letting chunks of a given hop share their samples
+    static int stripSize(final int hop) {
+        return hop < BUFFER_SIZE ? BUFFER_SIZE + (BUFFER_SIZE / hop - 1) * hop : BUFFER_SIZE;
+    }
+
+    // start time of the next chunk, no later chunk of this writer starts before it
+    float nextStartTime() {
+        return this.chunkIndex * this.hop / this.sampleRate;
+    }
+
+    void write(final float[] in, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (this.strip == null) {
+                this.strip = new PooledBuffer(this.bufferPool);
+            }
+            this.strip.getSamples()[this.filled++] = toShort(in[offset + i]);
+            if (this.filled == this.nextOffset + BUFFER_SIZE) {
+                this.emit();
+            }
+        }
+    }
+
+    void close() {
+        if (this.strip != null) {
+            if (this.filled > this.pushedEnd) {
+                // pooled arrays still hold the samples of a previous strip
+                Arrays.fill(this.strip.getSamples(), this.filled, this.nextOffset + BUFFER_SIZE, (short) 0);
+                this.filled = this.nextOffset + BUFFER_SIZE;
+                this.emit();
+            }
+            if (this.strip != null) {
+                this.strip.release();
+                this.strip = null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void emit() {
+        final float duration = BUFFER_SIZE / this.sampleRate;
+        final float startTime = this.nextStartTime();
+        this.strip.retain();
+        final SampleChunk chunk = new SampleChunk(this.channelNumber, this.strip, this.nextOffset, this.sampleRate, this.musicalRange,
+                startTime, startTime + duration);
+        if (this.dropOldest) {
+            while (!this.sampleQueue.offer(chunk)) {
+                final Object oldest = this.sampleQueue.get();
+                if (oldest instanceof SampleChunk) {
+                    ((SampleChunk) oldest).release();
+                    this.dropped++;
+                }
+            }
+        } else {
+            this.sampleQueue.push(chunk);
+        }
+        this.chunkIndex++;
+        this.pushedEnd = this.nextOffset + BUFFER_SIZE;
+        this.nextOffset += this.hop;
+        if (this.nextOffset == this.chunksPerStrip * this.hop) {
+            this.nextStrip();
+        }
+    }
+
+    // carry the samples of the chunks still to come to a new strip and let go of the current one
+    private void nextStrip() {
+        final int carried = this.filled - this.nextOffset;
+        PooledBuffer next = null;
+        if (carried > 0) {
+            next = new PooledBuffer(this.bufferPool);
+            System.arraycopy(this.strip.getSamples(), this.nextOffset, next.getSamples(), 0, carried);
+        }
+        this.strip.release();
+        this.strip = next;
+        this.filled = Math.max(0, carried);
+        this.pushedEnd -= this.nextOffset;
+        this.nextOffset = 0;
+    }
+
+    private static short toShort(final float value) {
+        final int rounded = Math.round(value);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded));
+    }
+}
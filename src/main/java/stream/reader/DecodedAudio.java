@@ -0,0 +1,61 @@
+package stream.reader;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+
+/**
+ * PCM samples of a whole input, decoded and split by channel once and shared
+ * between the resampling passes of every musical range.
+ */
+public class DecodedAudio implements AudioSource {
+
+    private final float sampleRate;
+    private final short[][] channels;
+
+    DecodedAudio(final float sampleRate, final short[][] channels) {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    public static DecodedAudio decode(final AudioInputStream audioInputStream) throws IOException {
+        final AudioFormat srcFormat = audioInputStream.getFormat();
+        final AudioFormat pcmFormat = new AudioFormat(srcFormat.getSampleRate(), 16, srcFormat.getChannels(), true, false);
+        try (final AudioInputStream pcmInputStream = pcmFormat.matches(srcFormat)
+                ? audioInputStream
+                : AudioSystem.getAudioInputStream(pcmFormat, audioInputStream)) {
+            final byte[] bytes = pcmInputStream.readAllBytes();
+            final int channelNumber = pcmFormat.getChannels();
+            final int frameLength = bytes.length / pcmFormat.getFrameSize();
+            final short[][] channels = new short[channelNumber][frameLength];
+            PcmConverter.deinterleave16(bytes, frameLength, channels);
+            return new DecodedAudio(pcmFormat.getSampleRate(), channels);
+        }
+    }
+
+    @Override
+    public float getSampleRate() {
+        return this.sampleRate;
+    }
+
+    @Override
+    public int getChannelNumber() {
+        return this.channels.length;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return this.channels.length > 0 ? this.channels[0].length : 0;
+    }
+
+    @Override
+    public int read(final int channelIndex, final long position, final float[] dst, final int length) {
+        final short[] samples = this.channels[channelIndex];
+        final int count = (int) Math.max(0, Math.min(length, samples.length - position));
+        for (int i = 0; i < count; i++) {
+            dst[i] = samples[(int) position + i];
+        }
+        return count;
+    }
+}
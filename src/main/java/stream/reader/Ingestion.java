@@ -0,0 +1,95 @@
+package stream.reader;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads the readers run on. A reader spends its time blocked on its input or
+ * on a full queue, the analysis is done by the worker pool it feeds.
+ * <p>
+ * {@link #VIRTUAL} gives each input its own virtual thread, so thousands of
+ * files or streams waiting on reads do not hold as many platform threads. The
+ * build targets Java 17, virtual threads are looked up at run time and, on a
+ * runtime without them, VIRTUAL is {@link #PLATFORM}.
+ */
+public enum Ingestion {
+    PLATFORM {
+        @Override
+        public ThreadFactory threadFactory(final String name) {
+            final AtomicInteger count = new AtomicInteger();
+            return runnable -> new Thread(runnable, name + "-" + count.getAndIncrement());
+        }
+
+        @Override
+        public ExecutorService executor(final String name, final int concurrency) {
+            return Executors.newFixedThreadPool(concurrency, this.threadFactory(name));
+        }
+    },
+    VIRTUAL {
+        @Override
+        public ThreadFactory threadFactory(final String name) {
+            if (VIRTUAL_THREADS == null) {
+                return PLATFORM.threadFactory(name);
+            }
+            try {
+                return (ThreadFactory) VIRTUAL_THREADS.invoke(name + "-", 0L);
+            } catch (final Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        // a new thread for a task whenever none is idle, they cost too little to be bounded
+        @Override
+        public ExecutorService executor(final String name, final int concurrency) {
+            if (VIRTUAL_THREADS == null) {
+                return PLATFORM.executor(name, concurrency);
+            }
+            return Executors.newCachedThreadPool(this.threadFactory(name));
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return VIRTUAL_THREADS != null;
+        }
+    };
+
+    // Thread.ofVirtual().name(prefix, start).factory(), null before Java 21 or on a preview runtime without preview features
+    private static final MethodHandle VIRTUAL_THREADS = virtualThreads();
+
+    private static MethodHandle virtualThreads() {
+        try {
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final MethodHandle ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                    MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+            final MethodHandle name = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class));
+            final MethodHandle factory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+            // (prefix, start) -> ofVirtual().name(prefix, start).factory()
+            final MethodHandle named = MethodHandles.collectArguments(name, 0, ofVirtual.asType(MethodType.methodType(builder)));
+            final MethodHandle virtualThreads = MethodHandles.filterReturnValue(named, factory).asType(
+                    MethodType.methodType(Object.class, String.class, long.class));
+            // Java 19 and 20 have the method but refuse to run it unless preview features are enabled
+            virtualThreads.invoke("probe-", 0L);
+            return virtualThreads;
+        } catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        } catch (final Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // threads named name-0, name-1...
+    public abstract ThreadFactory threadFactory(String name);
+
+    // executor running at least concurrency tasks at once
+    public abstract ExecutorService executor(String name, int concurrency);
+
+    public boolean isAvailable() {
+        return true;
+    }
+}
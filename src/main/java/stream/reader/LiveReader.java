@@ -0,0 +1,174 @@
+package stream.reader;
+
+import stream.bus.BufferPool;
+import stream.bus.SampleQueue;
+import stream.metrics.Counter;
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
+import stream.model.MusicalRange;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.TargetDataLine;
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Reads raw 16 bit little endian PCM as it comes, from a capture line or any
+ * other stream, and feeds the chunks of every musical range, or the chunks at
+ * the source rate, to the queue until the stream ends or {@link #stop()} is called.
+ * <p>
+ * Samples are pushed in small blocks so a chunk is queued as soon as its last
+ * sample is in. The source cannot wait for the analyzer: when the queue is full
+ * the oldest chunks are dropped, see {@link #getDroppedChunks()}.
+ */
+public class LiveReader implements Runnable {
+
+    // about 12 ms at 44.1 kHz, the capture granularity
+    private static final int BLOCK_FRAMES = 512;
+
+    private final InputStream inputStream;
+    private final AudioFormat format;
+    private final SampleQueue sampleQueue;
+    private final ReSampler.Quality quality;
+    private final BufferPool bufferPool;
+    private final int hop;
+    private final boolean resampled;
+    private volatile boolean running = true;
+    private volatile long droppedChunks;
+
+    public LiveReader(final InputStream inputStream, final AudioFormat format, final SampleQueue sampleQueue,
+                      final ReSampler.Quality quality, final BufferPool bufferPool, final int hop) {
+        this(inputStream, format, sampleQueue, quality, bufferPool, hop, true);
+    }
+
+    // registers as a producer of the queue, run must be called for the queue to ever close
+    public LiveReader(final InputStream inputStream, final AudioFormat format, final SampleQueue sampleQueue,
+                      final ReSampler.Quality quality, final BufferPool bufferPool, final int hop, final boolean resampled) {
+        if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding()) || format.getSampleSizeInBits() != 16 || format.isBigEndian()) {
+            throw new IllegalArgumentException("Only 16 bit signed little endian PCM is supported, got " + format);
+        }
+        this.inputStream = inputStream;
+        this.format = format;
+        this.sampleQueue = sampleQueue;
+        this.quality = quality;
+        this.bufferPool = bufferPool;
+        this.hop = hop;
+        this.resampled = resampled;
+        sampleQueue.registerProducer();
+    }
+
+    // open and start the default capture line, closing the returned stream closes the line
+    public static AudioInputStream openLine(final AudioFormat format) throws LineUnavailableException {
+        final TargetDataLine line = AudioSystem.getTargetDataLine(format);
+        // a small line buffer, what sits in it is latency
+        line.open(format, 4 * BLOCK_FRAMES * format.getFrameSize());
+        line.start();
+        return new AudioInputStream(line);
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.read();
+        } catch (final IOException e) {
+            if (this.running) {
+                e.printStackTrace();
+            }
+        } finally {
+            this.sampleQueue.producerDone();
+        }
+    }
+
+    // stop after the block being read, the stream must also be closed if it may block
+    public void stop() {
+        this.running = false;
+    }
+
+    public long getDroppedChunks() {
+        return this.droppedChunks;
+    }
+
+    private void read() throws IOException {
+        final int channelNumber = this.format.getChannels();
+        final int frameSize = this.format.getFrameSize();
+        // a null range stands for the chunks at the source rate, written without resampling
+        final MusicalRange[] musicalRanges = this.resampled ? MusicalRange.values() : new MusicalRange[]{null};
+        final ReSampler[][] reSamplers = new ReSampler[musicalRanges.length][channelNumber];
+        final ChunkWriter[][] chunkWriters = new ChunkWriter[musicalRanges.length][channelNumber];
+        int maxOutput = 0;
+        for (int r = 0; r < musicalRanges.length; r++) {
+            final float sampleRate = musicalRanges[r] != null ? musicalRanges[r].getSampleRate() : this.format.getSampleRate();
+            for (int c = 0; c < channelNumber; c++) {
+                chunkWriters[r][c] = new ChunkWriter(c, sampleRate, musicalRanges[r], this.sampleQueue, this.bufferPool, this.hop, true);
+                if (musicalRanges[r] != null) {
+                    reSamplers[r][c] = new ReSampler(this.format.getSampleRate(), sampleRate, this.quality);
+                    maxOutput = Math.max(maxOutput, reSamplers[r][c].maxOutput(BLOCK_FRAMES));
+                }
+            }
+        }
+
+        final byte[] bytes = new byte[BLOCK_FRAMES * frameSize];
+        final short[][] channels = new short[channelNumber][BLOCK_FRAMES];
+        final float[] block = new float[BLOCK_FRAMES];
+        final float[] resampled = new float[maxOutput];
+        int filled = 0;
+        int read;
+        try {
+            while (this.running && (read = this.inputStream.read(bytes, filled, bytes.length - filled)) >= 0) {
+                filled += read;
+                final int frames = filled / frameSize;
+                if (frames == 0) {
+                    continue;
+                }
+                final long decodeStart = Metrics.start();
+                PcmConverter.deinterleave16(bytes, frames, channels);
+                Metrics.record(Stage.DECODE, decodeStart);
+                Metrics.count(Counter.BYTES, (long) frames * frameSize);
+                final long resampleStart = Metrics.start();
+                for (int c = 0; c < channelNumber; c++) {
+                    final short[] channel = channels[c];
+                    for (int i = 0; i < frames; i++) {
+                        block[i] = channel[i];
+                    }
+                    for (int r = 0; r < musicalRanges.length; r++) {
+                        if (reSamplers[r][c] == null) {
+                            chunkWriters[r][c].write(block, 0, frames);
+                        } else {
+                            chunkWriters[r][c].write(resampled, 0, reSamplers[r][c].process(block, 0, frames, resampled, 0));
+                        }
+                    }
+                }
+                Metrics.record(Stage.RESAMPLE, resampleStart);
+                // keep the bytes of an incomplete frame for the next read
+                filled -= frames * frameSize;
+                System.arraycopy(bytes, frames * frameSize, bytes, 0, filled);
+                this.droppedChunks = dropped(chunkWriters);
+            }
+        } finally {
+            // a stream closed to stop the capture still gets its last chunks
+            for (int r = 0; r < musicalRanges.length; r++) {
+                for (int c = 0; c < channelNumber; c++) {
+                    if (reSamplers[r][c] != null) {
+                        chunkWriters[r][c].write(resampled, 0, reSamplers[r][c].flush(resampled, 0));
+                    }
+                    chunkWriters[r][c].close();
+                }
+            }
+        }
+        this.droppedChunks = dropped(chunkWriters);
+    }
+
+    private static long dropped(final ChunkWriter[][] chunkWriters) {
+        long dropped = 0;
+        for (final ChunkWriter[] writers : chunkWriters) {
+            for (final ChunkWriter chunkWriter : writers) {
+                dropped += chunkWriter.getDropped();
+            }
+        }
+        return dropped;
+    }
+}
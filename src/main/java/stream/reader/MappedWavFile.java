@@ -0,0 +1,173 @@
+package stream.reader;
+
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * WAV file whose data chunk is memory mapped, samples are read straight from
+ * the page cache without going through AudioInputStream or a heap copy.
+ * <p>
+ * The RIFF header is parsed here, unknown chunks such as {@code bext} or
+ * {@code LIST} are skipped. A mapping cannot exceed 2 GB, so the data chunk is
+ * mapped in segments holding a whole number of frames. 16, 24 and 32 bit PCM
+ * are supported, see {@link PcmConverter} for the scale of the samples read.
+ */
+public class MappedWavFile implements AudioSource {
+
+    private static final int FORMAT_PCM = 1;
+    private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+    // format tag up to bits per sample
+    private static final int FMT_SIZE = 16;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final int channelNumber;
+    private final int bytesPerSample;
+    private final float sampleRate;
+    private final long frameLength;
+    private final long framesPerSegment;
+    private final ByteBuffer[] segments;
+
+    private MappedWavFile(final FileChannel channel, final int channelNumber, final int bytesPerSample, final float sampleRate,
+                          final long dataOffset, final long dataSize) throws IOException {
+        this.channel = channel;
+        this.channelNumber = channelNumber;
+        this.bytesPerSample = bytesPerSample;
+        this.sampleRate = sampleRate;
+        final int frameSize = bytesPerSample * channelNumber;
+        this.frameLength = dataSize / frameSize;
+        this.framesPerSegment = SEGMENT_BYTES / frameSize;
+        final int segmentCount = (int) ((this.frameLength + this.framesPerSegment - 1) / this.framesPerSegment);
+        this.segments = new ByteBuffer[segmentCount];
+        for (int s = 0; s < segmentCount; s++) {
+            final long firstFrame = s * this.framesPerSegment;
+            final long frames = Math.min(this.framesPerSegment, this.frameLength - firstFrame);
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + firstFrame * frameSize, frames * frameSize);
+            this.segments[s] = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    public static MappedWavFile open(final Path path) throws IOException, UnsupportedAudioFileException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return parse(channel);
+        } catch (final IOException | UnsupportedAudioFileException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static MappedWavFile parse(final FileChannel channel) throws IOException, UnsupportedAudioFileException {
+        final ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, header, 0);
+        if (header.getInt(0) != fourCC("RIFF") || header.getInt(8) != fourCC("WAVE")) {
+            throw new UnsupportedAudioFileException("Not a RIFF/WAVE file");
+        }
+
+        int channelNumber = 0;
+        int bytesPerSample = 0;
+        float sampleRate = 0;
+        long position = 12;
+        final ByteBuffer chunkHeader = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (position + 8 <= channel.size()) {
+            chunkHeader.clear();
+            readFully(channel, chunkHeader, position);
+            final int id = chunkHeader.getInt(0);
+            final long size = Integer.toUnsignedLong(chunkHeader.getInt(4));
+            final long body = position + 8;
+            if (id == fourCC("fmt ")) {
+                if (size < FMT_SIZE) {
+                    throw new UnsupportedAudioFileException("fmt chunk of " + size + " bytes, at least " + FMT_SIZE + " expected");
+                }
+                final ByteBuffer fmt = ByteBuffer.allocate((int) Math.min(size, 40)).order(ByteOrder.LITTLE_ENDIAN);
+                readFully(channel, fmt, body);
+                int formatTag = fmt.getShort(0) & 0xFFFF;
+                if (formatTag == FORMAT_EXTENSIBLE && fmt.capacity() >= 26) {
+                    // first two bytes of the sub format GUID hold the actual format tag
+                    formatTag = fmt.getShort(24) & 0xFFFF;
+                }
+                channelNumber = fmt.getShort(2) & 0xFFFF;
+                sampleRate = fmt.getInt(4);
+                final int bitsPerSample = fmt.getShort(14) & 0xFFFF;
+                if (formatTag != FORMAT_PCM || (bitsPerSample != 16 && bitsPerSample != 24 && bitsPerSample != 32)) {
+                    throw new UnsupportedAudioFileException("Only 16, 24 and 32 bit PCM are supported, got format "
+                            + formatTag + " with " + bitsPerSample + " bits");
+                }
+                bytesPerSample = bitsPerSample / 8;
+                if (channelNumber == 0 || sampleRate <= 0) {
+                    throw new UnsupportedAudioFileException("fmt chunk with " + channelNumber + " channels at " + sampleRate + " Hz");
+                }
+            } else if (id == fourCC("data")) {
+                if (channelNumber == 0) {
+                    throw new UnsupportedAudioFileException("data chunk before fmt chunk");
+                }
+                // a streamed file may leave the size unset, the data then runs to the end of the file
+                final long dataSize = Math.min(size, channel.size() - body);
+                return new MappedWavFile(channel, channelNumber, bytesPerSample, sampleRate, body, dataSize);
+            }
+            // chunks are word aligned
+            position = body + size + (size & 1);
+        }
+        throw new UnsupportedAudioFileException("No data chunk");
+    }
+
+    @Override
+    public float getSampleRate() {
+        return this.sampleRate;
+    }
+
+    @Override
+    public int getChannelNumber() {
+        return this.channelNumber;
+    }
+
+    @Override
+    public long getFrameLength() {
+        return this.frameLength;
+    }
+
+    @Override
+    public int read(final int channelIndex, final long position, final float[] dst, final int length) {
+        final int count = (int) Math.max(0, Math.min(length, this.frameLength - position));
+        int done = 0;
+        while (done < count) {
+            final long frame = position + done;
+            final ByteBuffer segment = this.segments[(int) (frame / this.framesPerSegment)];
+            final int first = (int) (frame % this.framesPerSegment);
+            final int frames = (int) Math.min(count - done, this.framesPerSegment - first);
+            PcmConverter.toFloatInShortUnits(segment, this.bytesPerSample, this.channelNumber, channelIndex, first, frames, dst, done);
+            done += frames;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            offset += read;
+        }
+    }
+
+    private static int fourCC(final String id) {
+        return (id.charAt(0)) | (id.charAt(1) << 8) | (id.charAt(2) << 16) | (id.charAt(3) << 24);
+    }
+}
@@ -0,0 +1,175 @@
+package stream.reader;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Conversion stage between raw PCM bytes and the sample arrays of the pipeline.
+ * <p>
+ * Every loop is a straight counted loop over primitive arrays with the sample
+ * width and the channel layout hoisted out of it, which is what the JIT needs to
+ * unroll and auto-vectorize it. Contiguous cases (mono input, 16 bit) get their
+ * own loop so they are not slowed down by the strided general case.
+ * <p>
+ * When the JVM runs with {@code --add-modules jdk.incubator.vector}, the
+ * contiguous 16 bit cases go through Vector API kernels first, the scalar loops
+ * then only finish the tail. Results are the same either way.
+ * <p>
+ * Samples read from the file stay in 16 bit units whatever the source width,
+ * 24 and 32 bit samples are scaled down so full scale is always 32768: chunks
+ * are stored as shorts once resampled. They are normalized when a chunk is
+ * packed for the FFT, in the same pass as the window.
+ */
+public final class PcmConverter {
+
+    private static final boolean VECTOR = vectorAvailable();
+
+    private static final float SCALE_24 = 1f / (1 << 8);
+    private static final float SCALE_32 = 1f / (1 << 16);
+
+    private PcmConverter() {
+    }
+
+    private static boolean vectorAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            // no species for this platform fails the initialization of the kernels
+            VectorPcm.deinterleave16(new byte[0], 0, new short[0]);
+            return true;
+        } catch (final LinkageError | RuntimeException e) {
+            return false;
+        }
+    }
+
+    // whether the Vector API kernels are used
+    public static boolean isVectorized() {
+        return VECTOR;
+    }
+
+    /**
+     * Extract one channel of little endian signed PCM frames from src into dst, in 16 bit units.
+     *
+     * @param src            little endian buffer of interleaved frames, read with absolute gets only
+     * @param bytesPerSample 2, 3 or 4
+     * @param firstFrame     index of the first frame to read, relative to the start of src
+     */
+    public static void toFloatInShortUnits(final ByteBuffer src, final int bytesPerSample, final int channelNumber, final int channelIndex,
+                               final int firstFrame, final int frames, final float[] dst, final int dstOffset) {
+        final int frameSize = bytesPerSample * channelNumber;
+        final int base = firstFrame * frameSize + channelIndex * bytesPerSample;
+        switch (bytesPerSample) {
+            case 2:
+                if (channelNumber == 1) {
+                    final int done = VECTOR ? VectorPcm.toFloat16(src, base, frames, dst, dstOffset) : 0;
+                    for (int i = done; i < frames; i++) {
+                        dst[dstOffset + i] = src.getShort(base + 2 * i);
+                    }
+                } else {
+                    for (int i = 0; i < frames; i++) {
+                        dst[dstOffset + i] = src.getShort(base + i * frameSize);
+                    }
+                }
+                break;
+            case 3:
+                for (int i = 0; i < frames; i++) {
+                    final int offset = base + i * frameSize;
+                    // sign comes from the shift of the most significant byte
+                    final int value = (src.get(offset) & 0xFF) | (src.get(offset + 1) & 0xFF) << 8 | src.get(offset + 2) << 16;
+                    dst[dstOffset + i] = value * SCALE_24;
+                }
+                break;
+            case 4:
+                for (int i = 0; i < frames; i++) {
+                    dst[dstOffset + i] = src.getInt(base + i * frameSize) * SCALE_32;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported sample size " + bytesPerSample);
+        }
+    }
+
+    // split interleaved 16 bit little endian frames into one array per channel, in a single pass over src
+    public static void deinterleave16(final byte[] src, final int frames, final short[][] dst) {
+        final int channelNumber = dst.length;
+        if (channelNumber == 1) {
+            final short[] mono = dst[0];
+            final int done = VECTOR ? VectorPcm.deinterleave16(src, frames, mono) : 0;
+            for (int i = done; i < frames; i++) {
+                mono[i] = (short) ((src[2 * i] & 0xFF) | src[2 * i + 1] << 8);
+            }
+            return;
+        }
+        final int frameSize = 2 * channelNumber;
+        for (int channelIndex = 0; channelIndex < channelNumber; channelIndex++) {
+            final short[] channel = dst[channelIndex];
+            final int base = 2 * channelIndex;
+            for (int i = 0; i < frames; i++) {
+                final int offset = base + i * frameSize;
+                channel[i] = (short) ((src[offset] & 0xFF) | src[offset + 1] << 8);
+            }
+        }
+    }
+
+    /**
+     * Normalize src[offset..offset + length) with scale, apply the analysis window when there is one,
+     * and store even samples in even[] and odd samples in odd[], the packed input of a real FFT.
+     * Positions from length up to window length, or up to 2 * even.length without window, are zeroed.
+     */
+    public static void toDoubleEvenOdd(final short[] src, final int offset, final int length, final double scale, final double[] window,
+                                       final double[] even, final double[] odd) {
+        final int total = window != null ? window.length : 2 * Math.min(even.length, odd.length);
+        final int pairs = Math.min(length, total) / 2;
+        if (window == null) {
+            for (int k = 0; k < pairs; k++) {
+                even[k] = src[offset + 2 * k] * scale;
+                odd[k] = src[offset + 2 * k + 1] * scale;
+            }
+        } else {
+            for (int k = 0; k < pairs; k++) {
+                even[k] = src[offset + 2 * k] * scale * window[2 * k];
+                odd[k] = src[offset + 2 * k + 1] * scale * window[2 * k + 1];
+            }
+        }
+        int k = pairs;
+        if (2 * k < Math.min(length, total)) {
+            // odd length, the last sample has no pair
+            even[k] = src[offset + 2 * k] * scale * (window != null ? window[2 * k] : 1);
+            odd[k] = 0;
+            k++;
+        }
+        for (; k < total / 2; k++) {
+            even[k] = 0;
+            odd[k] = 0;
+        }
+    }
+
+    // single precision version of toDoubleEvenOdd
+    public static void toFloatEvenOdd(final short[] src, final int offset, final int length, final float scale, final float[] window,
+                                      final float[] even, final float[] odd) {
+        final int total = window != null ? window.length : 2 * Math.min(even.length, odd.length);
+        final int pairs = Math.min(length, total) / 2;
+        if (window == null) {
+            for (int k = 0; k < pairs; k++) {
+                even[k] = src[offset + 2 * k] * scale;
+                odd[k] = src[offset + 2 * k + 1] * scale;
+            }
+        } else {
+            for (int k = 0; k < pairs; k++) {
+                even[k] = src[offset + 2 * k] * scale * window[2 * k];
+                odd[k] = src[offset + 2 * k + 1] * scale * window[2 * k + 1];
+            }
+        }
+        int k = pairs;
+        if (2 * k < Math.min(length, total)) {
+            // odd length, the last sample has no pair
+            even[k] = src[offset + 2 * k] * scale * (window != null ? window[2 * k] : 1);
+            odd[k] = 0;
+            k++;
+        }
+        for (; k < total / 2; k++) {
+            even[k] = 0;
+            odd[k] = 0;
+        }
+    }
+}
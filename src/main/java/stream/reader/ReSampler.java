@@ -1,27 +1,193 @@
 package stream.reader;
 
-import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Streaming windowed-sinc resampler working on float samples of one channel.
+ * <p>
+ * The low pass kernel is tabulated once, {@code phases} points per input sample,
+ * and evaluated by linear interpolation between two neighbouring phases, so any
+ * rate ratio is supported, including the non integer ones of the musical ranges.
+ * The table is built with {@link StrictMath} and output positions are computed
+ * from the output index rather than accumulated, so results do not depend on
+ * the JVM. Input is pushed in blocks of any size with {@link #process} and the
+ * tail is drained with {@link #flush}; an instance handles a single channel and
+ * is not thread safe. Kernel tables are shared by the resamplers of a same
+ * conversion, so the many short inputs of a batch build them once.
+ */
 public class ReSampler {
 
+    private static final Map<List<Object>, double[]> KERNELS = new ConcurrentHashMap<>();
+
+    public enum Quality {
+        LOW(8, 64, 0.85),
+        MEDIUM(16, 256, 0.90),
+        HIGH(32, 512, 0.95);
+
+        // zero crossings of the sinc on each side of the centre
+        private final int halfTaps;
+        private final int phases;
+        private final double rolloff;
+
+        Quality(final int halfTaps, final int phases, final double rolloff) {
+            this.halfTaps = halfTaps;
+            this.phases = phases;
+            this.rolloff = rolloff;
+        }
+    }
+
+    private final float sourceFreq;
     private final float targetFreq;
+    private final double step;
+    private final int phases;
+    // number of input samples used on each side of an output position
+    private final int span;
+    private final double[] kernel;
+
+    private float[] buffer;
+    // absolute input index of buffer[0], inputs before 0 are zeros
+    private long bufferStart;
+    private int bufferLength;
+    private long inputCount;
+    private long outputCount;
+
+    public ReSampler(final float sourceFreq, final float targetFreq) {
+        this(sourceFreq, targetFreq, Quality.MEDIUM);
+    }
 
-    public ReSampler(final float targetFreq) {
+    public ReSampler(final float sourceFreq, final float targetFreq, final Quality quality) {
+        if (sourceFreq <= 0 || targetFreq <= 0) {
+            throw new IllegalArgumentException("Sample rates must be positive");
+        }
+        this.sourceFreq = sourceFreq;
         this.targetFreq = targetFreq;
+        this.step = (double) sourceFreq / targetFreq;
+        this.phases = quality.phases;
+
+        // cutoff relative to the input Nyquist frequency, lowered when decimating
+        final double cutoff = quality.rolloff * Math.min(1.0, targetFreq / (double) sourceFreq);
+        final double width = quality.halfTaps / cutoff;
+        this.span = (int) Math.ceil(width);
+        this.kernel = KERNELS.computeIfAbsent(List.of(sourceFreq, targetFreq, quality), key -> this.kernel(cutoff, width));
+        this.buffer = new float[4 * this.span + 1024];
+        this.reset();
+    }
+
+    public float getSourceFreq() {
+        return this.sourceFreq;
+    }
+
+    public float getTargetFreq() {
+        return this.targetFreq;
+    }
+
+    public void reset() {
+        Arrays.fill(this.buffer, 0);
+        this.bufferStart = -this.span;
+        this.bufferLength = this.span;
+        this.inputCount = 0;
+        this.outputCount = 0;
+    }
+
+    // upper bound of the samples produced by a call to process or flush with inLength input samples
+    public int maxOutput(final int inLength) {
+        return (int) Math.ceil((inLength + 2 * this.span + 1) / this.step) + 1;
+    }
+
+    // push inLength samples, write the resampled output to out and return the number of samples written
+    public int process(final float[] in, final int inOffset, final int inLength, final float[] out, final int outOffset) {
+        this.append(in, inOffset, inLength);
+        this.inputCount += inLength;
+        return this.produce(out, outOffset, Long.MAX_VALUE);
+    }
+
+    // pad the end of the input with zeros and write the remaining output
+    public int flush(final float[] out, final int outOffset) {
+        final float[] zeros = new float[this.span + 1];
+        this.append(zeros, 0, zeros.length);
+        final long total = (long) Math.ceil(this.inputCount / this.step);
+        return this.produce(out, outOffset, total);
+    }
+
+    private int produce(final float[] out, final int outOffset, final long limit) {
+        final long available = this.bufferStart + this.bufferLength;
+        int written = 0;
+        while (this.outputCount < limit) {
+            final double position = this.outputCount * this.step;
+            final long center = (long) Math.floor(position);
+            if (center + this.span >= available) {
+                break;
+            }
+            out[outOffset + written++] = this.interpolate(center, position - center);
+            this.outputCount++;
+        }
+        return written;
+    }
+
+    private float interpolate(final long center, final double fraction) {
+        final int origin = (int) (center - this.bufferStart);
+        double acc = 0;
+
+        // samples at center, center - 1, ... are at distance fraction, fraction + 1, ...
+        final double left = fraction * this.phases;
+        final int leftIndex = (int) left;
+        final double leftWeight = left - leftIndex;
+        for (int k = 0, j = leftIndex; k < this.span; k++, j += this.phases) {
+            final double h = this.kernel[j] + leftWeight * (this.kernel[j + 1] - this.kernel[j]);
+            acc += h * this.buffer[origin - k];
+        }
+
+        // samples at center + 1, center + 2, ... are at distance 1 - fraction, 2 - fraction, ...
+        final double right = (1 - fraction) * this.phases;
+        final int rightIndex = (int) right;
+        final double rightWeight = right - rightIndex;
+        for (int k = 0, j = rightIndex; k < this.span; k++, j += this.phases) {
+            final double h = this.kernel[j] + rightWeight * (this.kernel[j + 1] - this.kernel[j]);
+            acc += h * this.buffer[origin + 1 + k];
+        }
+        return (float) acc;
+    }
+
+    private void append(final float[] in, final int inOffset, final int inLength) {
+        // drop the samples no future output can reach
+        final long firstNeeded = (long) Math.floor(this.outputCount * this.step) - this.span + 1;
+        final int drop = (int) Math.max(0, Math.min(this.bufferLength, firstNeeded - this.bufferStart));
+        if (drop > 0) {
+            System.arraycopy(this.buffer, drop, this.buffer, 0, this.bufferLength - drop);
+            this.bufferStart += drop;
+            this.bufferLength -= drop;
+        }
+        if (this.bufferLength + inLength > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.bufferLength + inLength));
+        }
+        System.arraycopy(in, inOffset, this.buffer, this.bufferLength, inLength);
+        this.bufferLength += inLength;
+    }
+
+    private double[] kernel(final double cutoff, final double width) {
+        final double[] kernel = new double[this.span * this.phases + 2];
+        for (int j = 0; j < kernel.length; j++) {
+            final double distance = j / (double) this.phases;
+            if (distance < width) {
+                kernel[j] = cutoff * sinc(cutoff * distance) * blackman(distance / width);
+            }
+        }
+        return kernel;
     }
 
-    public AudioInputStream resample(final AudioInputStream audioIn) {
-        final AudioFormat srcFormat = audioIn.getFormat();
+    private static double sinc(final double x) {
+        if (x == 0) {
+            return 1;
+        }
+        final double pix = StrictMath.PI * x;
+        return StrictMath.sin(pix) / pix;
+    }
 
-        final AudioFormat dstFormat = new AudioFormat(srcFormat.getEncoding(),
-                this.targetFreq,
-                srcFormat.getSampleSizeInBits(),
-                srcFormat.getChannels(),
-                srcFormat.getFrameSize(),
-                srcFormat.getFrameRate() / 2,
-                srcFormat.isBigEndian());
-        return AudioSystem.getAudioInputStream(dstFormat, audioIn);
+    // Blackman window over [-1, 1]
+    private static double blackman(final double x) {
+        return 0.42 + 0.5 * StrictMath.cos(StrictMath.PI * x) + 0.08 * StrictMath.cos(2 * StrictMath.PI * x);
     }
 }
@@ -0,0 +1,52 @@
+package stream.reader;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Vector API kernels of {@link PcmConverter}, only loaded when the
+ * jdk.incubator.vector module is in the boot layer. Each one converts the
+ * longest prefix made of whole vectors and returns its length, the scalar loop
+ * of the caller does the rest. Operations are those of the scalar loops in the
+ * same order, so results are identical. Only contiguous loads are used, gathers
+ * for the even/odd packing of the FFT input are slower than the scalar loop.
+ */
+final class VectorPcm {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    // as many shorts as there are lanes in FLOATS
+    private static final VectorSpecies<Short> SHORTS_OF_FLOATS =
+            VectorSpecies.of(short.class, VectorShape.forBitSize(FLOATS.length() * Short.SIZE));
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    private VectorPcm() {
+    }
+
+    // mono 16 bit frames of src from byte position base into dst
+    static int toFloat16(final ByteBuffer src, final int base, final int frames, final float[] dst, final int dstOffset) {
+        final int lanes = FLOATS.length();
+        final int bound = frames - frames % lanes;
+        for (int i = 0; i < bound; i += lanes) {
+            ((FloatVector) ShortVector.fromByteBuffer(SHORTS_OF_FLOATS, src, base + 2 * i, ByteOrder.LITTLE_ENDIAN)
+                    .convertShape(VectorOperators.S2F, FLOATS, 0))
+                    .intoArray(dst, dstOffset + i);
+        }
+        return bound;
+    }
+
+    // mono 16 bit little endian frames of src into mono
+    static int deinterleave16(final byte[] src, final int frames, final short[] mono) {
+        final int lanes = SHORTS.length();
+        final int bound = frames - frames % lanes;
+        for (int i = 0; i < bound; i += lanes) {
+            ShortVector.fromByteArray(SHORTS, src, 2 * i, ByteOrder.LITTLE_ENDIAN).intoArray(mono, i);
+        }
+        return bound;
+    }
+}
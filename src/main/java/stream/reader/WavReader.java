@@ -1,103 +1,251 @@
 package stream.reader;
 
+import stream.bus.BufferPool;
 import stream.bus.SampleQueue;
+import stream.metrics.Counter;
+import stream.metrics.Metrics;
+import stream.metrics.Stage;
 import stream.model.MusicalRange;
-import stream.model.SampleChunk;
+import stream.model.Watermark;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
-import static java.lang.String.format;
 import static stream.App.BUFFER_SIZE;
 
 public class WavReader implements Runnable {
 
-    // Set an arbitrary buffer size of 1024 frames, is equal to sample number
+    // number of source frames resampled at once
+    private static final int BLOCK_SIZE = 8192;
     private final String fileName;
     private AudioFormat format;
     private final SampleQueue sampleQueue;
+    private final ReSampler.Quality quality;
+    private final BufferPool bufferPool;
+    private final int hop;
+    // shared by the readers of a batch, null for a pool of the reader's own
+    private final ExecutorService rangeExecutor;
+    private final boolean verbose;
+    // one pass per musical range, or a single one at the source rate
+    private final boolean resampled;
+    private volatile float duration;
+    private volatile Exception failure;
 
     public WavReader(final String fileName, final SampleQueue sampleQueue) {
+        this(fileName, sampleQueue, ReSampler.Quality.MEDIUM, new BufferPool(BUFFER_SIZE, sampleQueue.capacity()), BUFFER_SIZE);
+    }
+
+    public WavReader(final String fileName, final SampleQueue sampleQueue, final ReSampler.Quality quality, final BufferPool bufferPool,
+                     final int hop) {
+        this(fileName, sampleQueue, quality, bufferPool, hop, null, true);
+    }
+
+    // verbose prints the stack trace of a failure to the standard error
+    public WavReader(final String fileName, final SampleQueue sampleQueue, final ReSampler.Quality quality, final BufferPool bufferPool,
+                     final int hop, final ExecutorService rangeExecutor, final boolean verbose) {
+        this(fileName, sampleQueue, quality, bufferPool, hop, rangeExecutor, verbose, true);
+    }
+
+    // registers as a producer of the queue, run must be called for the queue to ever close
+    public WavReader(final String fileName, final SampleQueue sampleQueue, final ReSampler.Quality quality, final BufferPool bufferPool,
+                     final int hop, final ExecutorService rangeExecutor, final boolean verbose, final boolean resampled) {
         this.fileName = fileName;
         this.sampleQueue = sampleQueue;
+        this.quality = quality;
+        this.bufferPool = bufferPool;
+        this.hop = hop;
+        this.rangeExecutor = rangeExecutor;
+        this.verbose = verbose;
+        this.resampled = resampled;
         this.setAudioFormat();
+        sampleQueue.registerProducer();
     }
 
+    // size of the pool buffers for chunks starting every hop samples, consecutive chunks then share their samples
+    public static int bufferSize(final int hop) {
+        return ChunkWriter.stripSize(hop);
+    }
+
+    // range passes push their chunks concurrently, the queue is told once all of them are done
     @Override
     public void run() {
-        for (final MusicalRange musicalRange : MusicalRange.values()) {
-            try (final InputStream resourceAsStream = WavReader.class.getClassLoader().getResourceAsStream(this.fileName);
-                 final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(resourceAsStream)) {
-                this.printInfo(audioInputStream);
-                final float sampleRate = musicalRange.getSampleRate(BUFFER_SIZE);
-                final ReSampler reSampler = new ReSampler(sampleRate);
-                final AudioInputStream resampledAudioInputStream = reSampler.resample(audioInputStream);
-                this.readAudioByChunk(resampledAudioInputStream, musicalRange);
-            } catch (final IOException | UnsupportedAudioFileException e) {
+        try {
+            this.readAllRanges();
+        } finally {
+            this.sampleQueue.producerDone();
+        }
+    }
+
+    private void readAllRanges() {
+        try (final AudioSource audioSource = this.openSource()) {
+            this.duration = audioSource.getFrameLength() / audioSource.getSampleRate();
+            this.readAllRanges(audioSource);
+        } catch (final IOException | UnsupportedAudioFileException e) {
+            this.failure = e;
+            if (this.verbose) {
                 e.printStackTrace();
             }
         }
     }
 
-    private void printInfo(final AudioInputStream audioInputStream) {
-        final AudioFormat format = audioInputStream.getFormat();
-        final int sampleSizeInBits = format.getSampleSizeInBits();
-        System.out.println(sampleSizeInBits);
+    // seconds of audio in the file, known once run has opened it
+    public float getDuration() {
+        return this.duration;
+    }
+
+    // why the file could not be read, null if it was
+    public Exception getFailure() {
+        return this.failure;
     }
 
-    private void readAudioByChunk(final AudioInputStream audioInputStream, final MusicalRange musicalRange) {
-        final AudioFormat format = audioInputStream.getFormat();
-        final int bytesPerFrame = format.getFrameSize();
-        final int channelNumber = format.getChannels();
-        final float sampleRate = format.getSampleRate();
-        this.dumpInfo(bytesPerFrame, channelNumber, sampleRate);
-        System.out.println(audioInputStream.getFormat());
-        final int numBytes = BUFFER_SIZE * bytesPerFrame * channelNumber;
-        final byte[] audioBytes = new byte[numBytes];
-        float startTime = 0;
-        float endTime = this.getChunkDuration(sampleRate);
+    // files on disk are memory mapped, other names are looked up as classpath resources and decoded
+    private AudioSource openSource() throws IOException, UnsupportedAudioFileException {
+        final Path path = Paths.get(this.fileName);
+        if (Files.isRegularFile(path)) {
+            return MappedWavFile.open(path);
+        }
+        try (final InputStream resourceAsStream = WavReader.class.getClassLoader().getResourceAsStream(this.fileName)) {
+            if (resourceAsStream == null) {
+                throw new FileNotFoundException(this.fileName);
+            }
+            try (final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(resourceAsStream))) {
+                final long start = Metrics.start();
+                final DecodedAudio decodedAudio = DecodedAudio.decode(audioInputStream);
+                Metrics.record(Stage.DECODE, start);
+                return decodedAudio;
+            }
+        }
+    }
+
+    // the ranges advance together block after block, so chunks come roughly in time order and watermarks can follow each block
+    private void readAllRanges(final AudioSource audioSource) {
+        // a null range stands for the chunks at the source rate
+        final MusicalRange[] musicalRanges = this.resampled ? MusicalRange.values() : new MusicalRange[]{null};
+        final int threads = Math.min(musicalRanges.length, Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = this.rangeExecutor != null ? this.rangeExecutor : Executors.newFixedThreadPool(threads);
         try {
-            while (audioInputStream.read(audioBytes) != -1) {
-                //System.out.println(String.format("start time %f end time %f", startTime, endTime));
-                final int numberOfSamples = audioBytes.length / bytesPerFrame / channelNumber;
-                for (int channelIndex = 0; channelIndex < channelNumber; channelIndex++) {
-                    final short[] channelBytes = new short[BUFFER_SIZE];
-                    for (int sampleIndex = 0; sampleIndex < numberOfSamples; sampleIndex++) {
-                        final int offset = bytesPerFrame * (sampleIndex * channelNumber + channelIndex);
-                        final short value = this.byteArrayToShortLE(audioBytes, offset);
-                        channelBytes[sampleIndex] = value;
-                        //System.out.println("adding " + value + " to channel " + channelIndex);
-                    }
-                    this.sampleQueue.push(new SampleChunk(channelIndex, channelBytes, sampleRate, musicalRange, startTime, endTime));
-                    startTime += this.getChunkDuration(sampleRate);
-                    endTime += this.getChunkDuration(sampleRate);
+            final List<RangePass> rangePasses = new ArrayList<>();
+            for (final MusicalRange musicalRange : musicalRanges) {
+                rangePasses.add(new RangePass(audioSource, musicalRange));
+            }
+            // every range resamples the same source frames, read once per block
+            final float[][] block = new float[audioSource.getChannelNumber()][BLOCK_SIZE];
+            long position = 0;
+            int read;
+            while ((read = this.readBlock(audioSource, position, block)) > 0) {
+                position += read;
+                final int frames = read;
+                invokeAll(executor, rangePasses, rangePass -> rangePass.process(block, frames));
+                float watermark = Float.POSITIVE_INFINITY;
+                for (final RangePass rangePass : rangePasses) {
+                    watermark = Math.min(watermark, rangePass.nextStartTime());
                 }
+                this.sampleQueue.push(new Watermark(watermark));
+            }
+            invokeAll(executor, rangePasses, RangePass::flush);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            this.failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            if (this.verbose) {
+                e.getCause().printStackTrace();
+            }
+        } finally {
+            if (executor != this.rangeExecutor) {
+                executor.shutdown();
             }
-        } catch (final Exception ex) {
-            ex.printStackTrace();
         }
     }
 
-    private float getChunkDuration(final float sampleRate) {
-        return 1 / sampleRate * BUFFER_SIZE;
+    private int readBlock(final AudioSource audioSource, final long position, final float[][] block) {
+        final long start = Metrics.start();
+        int read = 0;
+        for (int channelIndex = 0; channelIndex < block.length; channelIndex++) {
+            read = audioSource.read(channelIndex, position, block[channelIndex], BLOCK_SIZE);
+        }
+        Metrics.record(Stage.DECODE, start);
+        Metrics.count(Counter.BYTES, (long) read * (this.format != null ? this.format.getFrameSize() : 2 * block.length));
+        return read;
     }
 
-    private void dumpInfo(final int bytesPerFrame, final int channelNumber, final float sampleRate) {
-        final String message = "bytesPerFrame %d, bytesPerFrame %d, sampleRate %f";
-        final String format = format(message, bytesPerFrame, channelNumber, sampleRate);
-        System.out.println(format);
+    private static void invokeAll(final ExecutorService executor, final List<RangePass> rangePasses, final Consumer<RangePass> action)
+            throws InterruptedException, ExecutionException {
+        final List<Future<?>> futures = new ArrayList<>();
+        for (final RangePass rangePass : rangePasses) {
+            futures.add(executor.submit(() -> action.accept(rangePass)));
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
     }
 
-    public short byteArrayToShortLE(final byte[] b, final int offset) {
-        short value = 0;
-        for (int i = 0; i < 2; i++) {
-            value |= (b[i + offset] & 0x000000FF) << (i * 8);
+    // resampling and chunking state of every channel of one musical range, or chunking only without a range
+    private class RangePass {
+
+        private final ReSampler[] reSamplers;
+        private final ChunkWriter[] chunkWriters;
+        private final float[] resampled;
+
+        RangePass(final AudioSource audioSource, final MusicalRange musicalRange) {
+            final float sampleRate = musicalRange != null ? musicalRange.getSampleRate() : audioSource.getSampleRate();
+            final int channelNumber = audioSource.getChannelNumber();
+            this.reSamplers = new ReSampler[channelNumber];
+            this.chunkWriters = new ChunkWriter[channelNumber];
+            for (int channelIndex = 0; channelIndex < channelNumber; channelIndex++) {
+                this.reSamplers[channelIndex] = musicalRange != null
+                        ? new ReSampler(audioSource.getSampleRate(), sampleRate, WavReader.this.quality)
+                        : null;
+                this.chunkWriters[channelIndex] = new ChunkWriter(channelIndex, sampleRate, musicalRange, WavReader.this.sampleQueue,
+                        WavReader.this.bufferPool, WavReader.this.hop);
+            }
+            this.resampled = new float[channelNumber > 0 && musicalRange != null ? this.reSamplers[0].maxOutput(BLOCK_SIZE) : 0];
+        }
+
+        void process(final float[][] block, final int frames) {
+            final long start = Metrics.start();
+            for (int channelIndex = 0; channelIndex < this.reSamplers.length; channelIndex++) {
+                if (this.reSamplers[channelIndex] == null) {
+                    this.chunkWriters[channelIndex].write(block[channelIndex], 0, frames);
+                    continue;
+                }
+                final int written = this.reSamplers[channelIndex].process(block[channelIndex], 0, frames, this.resampled, 0);
+                this.chunkWriters[channelIndex].write(this.resampled, 0, written);
+            }
+            Metrics.record(Stage.RESAMPLE, start);
+        }
+
+        void flush() {
+            for (int channelIndex = 0; channelIndex < this.reSamplers.length; channelIndex++) {
+                if (this.reSamplers[channelIndex] != null) {
+                    this.chunkWriters[channelIndex].write(this.resampled, 0, this.reSamplers[channelIndex].flush(this.resampled, 0));
+                }
+                this.chunkWriters[channelIndex].close();
+            }
+        }
+
+        float nextStartTime() {
+            float nextStartTime = Float.POSITIVE_INFINITY;
+            for (final ChunkWriter chunkWriter : this.chunkWriters) {
+                nextStartTime = Math.min(nextStartTime, chunkWriter.nextStartTime());
+            }
+            return nextStartTime;
         }
-        return value;
     }
 
     public int getChannelNumber() {
@@ -109,6 +257,15 @@ public class WavReader implements Runnable {
     }
 
     private void setAudioFormat() {
+        final Path path = Paths.get(this.fileName);
+        if (Files.isRegularFile(path)) {
+            try {
+                this.format = AudioSystem.getAudioFileFormat(path.toFile()).getFormat();
+            } catch (final IOException | UnsupportedAudioFileException e) {
+                this.format = null;
+            }
+            return;
+        }
         try (final InputStream resourceAsStream = WavReader.class.getClassLoader().getResourceAsStream(this.fileName);
              final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(resourceAsStream)) {
             this.format = audioInputStream.getFormat();
@@ -116,24 +273,4 @@ public class WavReader implements Runnable {
             this.format = null;
         }
     }
-
-    /*public List<BlockingDeque<short[]>> createQueues() {
-        final int channelNumber = this.getChannelNumber();
-        final List<BlockingDeque<short[]>> channelDeques = new ArrayList<>();
-        for (int i = 0; i < channelNumber; i++) {
-            channelDeques.add(new LinkedBlockingDeque<>());
-        }
-        this.deques = channelDeques;
-        return channelDeques;
-    }
-
-    public void setDeQueues(final List<BlockingDeque<short[]>> deques) {
-        this.deques = deques;
-    }
-
-    public short[] createPoisonPill() {
-        final short[] poisonPill = {Short.MIN_VALUE, Short.MAX_VALUE};
-        this.poisonPill = poisonPill;
-        return poisonPill;
-    }*/
 }
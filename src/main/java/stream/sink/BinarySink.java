@@ -0,0 +1,108 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact big endian records read back with {@link Reader}: start time as a
+ * float, note as a short index, frequency and power as doubles, 22 bytes in
+ * all. Note names are stored once, right after the first record using them.
+ */
+public class BinarySink implements DetectionSink {
+
+    private static final int MAGIC = 0x44455431;
+
+    private final DataOutputStream output;
+    private final Map<String, Integer> notes = new HashMap<>();
+
+    public BinarySink(final OutputStream outputStream) {
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+        try {
+            this.output.writeInt(MAGIC);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void accept(final Detection detection) {
+        try {
+            final Integer known = this.notes.get(detection.getNote());
+            final int note = known != null ? known : this.notes.size();
+            this.output.writeFloat(detection.getStartTime());
+            this.output.writeShort(note);
+            if (known == null) {
+                this.notes.put(detection.getNote(), note);
+                this.output.writeUTF(detection.getNote());
+            }
+            this.output.writeDouble(detection.getFrequency());
+            this.output.writeDouble(detection.getPower());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            this.output.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.output.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static class Reader implements AutoCloseable {
+
+        private final DataInputStream input;
+        private final List<String> notes = new ArrayList<>();
+
+        public Reader(final InputStream inputStream) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(inputStream));
+            if (this.input.readInt() != MAGIC) {
+                throw new IOException("Not a detection file");
+            }
+        }
+
+        // next detection, or null at the end of the stream
+        public Detection read() throws IOException {
+            final float startTime;
+            try {
+                startTime = this.input.readFloat();
+            } catch (final EOFException e) {
+                return null;
+            }
+            final int note = this.input.readUnsignedShort();
+            if (note == this.notes.size()) {
+                this.notes.add(this.input.readUTF());
+            }
+            return new Detection(startTime, this.notes.get(note), this.input.readDouble(), this.input.readDouble());
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.input.close();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.io.OutputStream;
+
+/**
+ * Comma separated values with a header line, numbers in their shortest exact form.
+ */
+public class CsvSink extends WriterSink {
+
+    public CsvSink(final OutputStream outputStream) {
+        super(outputStream, "start_time,note,frequency,power" + System.lineSeparator());
+    }
+
+    @Override
+    void format(final StringBuilder line, final Detection detection) {
+        line.append(detection.getStartTime()).append(',')
+                .append(detection.getNote()).append(',')
+                .append(detection.getFrequency()).append(',')
+                .append(detection.getPower());
+    }
+}
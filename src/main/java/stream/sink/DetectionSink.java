@@ -0,0 +1,24 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+/**
+ * Destination of the detections, fed one at a time as they are produced.
+ * <p>
+ * Implementations are not thread safe. Output errors are reported as
+ * {@link java.io.UncheckedIOException}.
+ */
+@FunctionalInterface
+public interface DetectionSink extends AutoCloseable {
+
+    void accept(Detection detection);
+
+    // push buffered output to the underlying stream
+    default void flush() {
+    }
+
+    @Override
+    default void close() {
+        this.flush();
+    }
+}
@@ -0,0 +1,24 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.io.OutputStream;
+
+/**
+ * One JSON object per line. Note names are plain letters and digits, they need no escaping.
+ */
+public class JsonLinesSink extends WriterSink {
+
+    public JsonLinesSink(final OutputStream outputStream) {
+        super(outputStream, null);
+    }
+
+    @Override
+    void format(final StringBuilder line, final Detection detection) {
+        line.append("{\"startTime\":").append(detection.getStartTime())
+                .append(",\"note\":\"").append(detection.getNote())
+                .append("\",\"frequency\":").append(detection.getFrequency())
+                .append(",\"power\":").append(detection.getPower())
+                .append('}');
+    }
+}
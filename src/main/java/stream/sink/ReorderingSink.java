@@ -0,0 +1,75 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Reorder buffer in front of a sink: detections are accepted in any order and
+ * passed on by start time once the watermark has gone past them, that is once
+ * no earlier detection can come anymore. Detections of a same start time and
+ * frequency keep their arrival order.
+ * <p>
+ * Only the detections between the watermark and the latest chunk are held,
+ * so memory follows the reordering window rather than the length of the input.
+ */
+public class ReorderingSink implements DetectionSink {
+
+    private final DetectionSink downstream;
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(
+            Comparator.<Pending, Detection>comparing(p -> p.detection, Detection.BY_START_TIME).thenComparingLong(p -> p.sequence));
+    private float watermark = Float.NEGATIVE_INFINITY;
+    private long sequence;
+
+    public ReorderingSink(final DetectionSink downstream) {
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(final Detection detection) {
+        if (detection.getStartTime() < this.watermark) {
+            throw new IllegalStateException("Detection at " + detection.getStartTime() + " behind the watermark " + this.watermark);
+        }
+        this.pending.add(new Pending(detection, this.sequence++));
+    }
+
+    // no detection will start before time anymore, pass on the ones that do
+    public void advance(final float time) {
+        this.watermark = Math.max(this.watermark, time);
+        while (!this.pending.isEmpty() && this.pending.peek().detection.getStartTime() < this.watermark) {
+            this.downstream.accept(this.pending.poll().detection);
+        }
+    }
+
+    // pass on everything held, at the end of the input
+    public void drain() {
+        this.advance(Float.POSITIVE_INFINITY);
+    }
+
+    public int getPending() {
+        return this.pending.size();
+    }
+
+    @Override
+    public void flush() {
+        this.downstream.flush();
+    }
+
+    @Override
+    public void close() {
+        this.drain();
+        this.downstream.close();
+    }
+
+    private static class Pending {
+
+        private final Detection detection;
+        private final long sequence;
+
+        Pending(final Detection detection, final long sequence) {
+            this.detection = detection;
+            this.sequence = sequence;
+        }
+    }
+}
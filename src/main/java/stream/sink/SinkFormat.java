@@ -0,0 +1,43 @@
+package stream.sink;
+
+import java.io.OutputStream;
+
+public enum SinkFormat {
+    TEXT("txt") {
+        @Override
+        public DetectionSink create(final OutputStream outputStream) {
+            return new TextSink(outputStream);
+        }
+    },
+    CSV("csv") {
+        @Override
+        public DetectionSink create(final OutputStream outputStream) {
+            return new CsvSink(outputStream);
+        }
+    },
+    JSONL("jsonl") {
+        @Override
+        public DetectionSink create(final OutputStream outputStream) {
+            return new JsonLinesSink(outputStream);
+        }
+    },
+    BINARY("bin") {
+        @Override
+        public DetectionSink create(final OutputStream outputStream) {
+            return new BinarySink(outputStream);
+        }
+    };
+
+    private final String extension;
+
+    SinkFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    // file name extension of the output
+    public String getExtension() {
+        return this.extension;
+    }
+
+    public abstract DetectionSink create(OutputStream outputStream);
+}
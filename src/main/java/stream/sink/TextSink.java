@@ -0,0 +1,52 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Human readable lines, {@code [startTime] note (frequency) power}, the historical
+ * output of the detector.
+ */
+public class TextSink extends WriterSink {
+
+    // below it, scaled values are exact enough to be rounded without String.format
+    private static final double FAST_LIMIT = 1e6;
+    private static final double SCALE = 1e6;
+
+    public TextSink(final OutputStream outputStream) {
+        super(outputStream, null);
+    }
+
+    @Override
+    void format(final StringBuilder line, final Detection detection) {
+        line.append('[');
+        appendFixed(line, detection.getStartTime());
+        line.append("] ").append(detection.getNote()).append(" (");
+        appendFixed(line, detection.getFrequency());
+        line.append(") ").append(detection.getPower());
+    }
+
+    // same digits as %f in the root locale, six decimals rounded half up
+    static void appendFixed(final StringBuilder line, final double value) {
+        final double magnitude = Math.abs(value);
+        final double scaled = magnitude * SCALE;
+        final double fraction = scaled - Math.floor(scaled);
+        // %f rounds the decimal form of the value, near a tie the binary product may round the other way
+        if (!(magnitude < FAST_LIMIT) || Math.abs(fraction - 0.5) < 1e-3) {
+            line.append(String.format(Locale.ROOT, "%f", value));
+            return;
+        }
+        if (value < 0 || (value == 0 && 1 / value < 0)) {
+            line.append('-');
+        }
+        final long units = (long) Math.floor(scaled + 0.5);
+        line.append(units / 1_000_000).append('.');
+        final long decimals = units % 1_000_000;
+        for (long digit = 100_000; digit > decimals && digit > 1; digit /= 10) {
+            line.append('0');
+        }
+        line.append(decimals);
+    }
+}
@@ -0,0 +1,67 @@
+package stream.sink;
+
+import stream.model.Detection;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base of the sinks writing one line of text per detection. Lines are built in
+ * a reused StringBuilder and written through a large buffer, so a detection
+ * costs neither a Formatter nor a system call.
+ */
+abstract class WriterSink implements DetectionSink {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(128);
+
+    WriterSink(final OutputStream outputStream, final String header) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (header != null) {
+            this.write(header);
+        }
+    }
+
+    abstract void format(StringBuilder line, Detection detection);
+
+    @Override
+    public void accept(final Detection detection) {
+        this.line.setLength(0);
+        this.format(this.line, detection);
+        this.line.append(System.lineSeparator());
+        this.write(this.line);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            this.writer.flush();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.writer.close();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(final CharSequence text) {
+        try {
+            this.writer.append(text);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
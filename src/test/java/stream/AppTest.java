@@ -0,0 +1,35 @@
+package stream;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.sink.BinarySink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppTest {
+
+    @Test
+    void standardOutputOnlyCarriesTheSink() throws Exception {
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(byteArrayOutputStream, true));
+        try {
+            App.main(new String[]{"--file=g_tdd_120_01.wav", "--format=binary"});
+        } finally {
+            System.setOut(out);
+        }
+        int count = 0;
+        try (final BinarySink.Reader reader = new BinarySink.Reader(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            for (Detection detection = reader.read(); detection != null; detection = reader.read()) {
+                assertTrue(detection.getPower() > 100);
+                count++;
+            }
+        }
+        assertEquals(8, count);
+    }
+}
@@ -0,0 +1,24 @@
+package stream;
+
+import org.junit.jupiter.api.Test;
+import stream.fft.DetectionEngineType;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OptionsTest {
+
+    @Test
+    void enumsIgnoreTheDefaultLocale() {
+        final Locale locale = Locale.getDefault();
+        // the upper case of i is a dotted capital I in Turkish
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            final Options options = new Options(new String[]{"--engine=goertzel"});
+            assertEquals(DetectionEngineType.GOERTZEL, options.getEnum("engine", DetectionEngineType.FFT));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package stream.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stream.fft.FFTService;
+import stream.reader.Ingestion;
+import stream.reader.ReSampler;
+import stream.sink.SinkFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+
+class BatchRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void processesEachFileOnceAndResumes() throws Exception {
+        final Path input = Files.createDirectories(this.directory.resolve("in/sub"));
+        final Path source = Paths.get(BatchRunnerTest.class.getClassLoader().getResource("g_tdd_120_01.wav").toURI());
+        Files.copy(source, this.directory.resolve("in/first.wav"));
+        Files.copy(source, input.resolve("second.wav"));
+        Files.write(input.resolve("broken.wav"), new byte[]{1, 2, 3});
+        final Path output = this.directory.resolve("out");
+
+        final List<Path> files = BatchRunner.listFiles(this.directory.resolve("in").toString());
+        assertEquals(3, files.size());
+        final BatchRunner batchRunner = new BatchRunner(FFTService::new, ReSampler.Quality.LOW, BUFFER_SIZE, SinkFormat.CSV, output, 2);
+        final BatchStats first = batchRunner.run(this.directory.resolve("in"), files);
+
+        assertEquals(2, first.getProcessed());
+        assertEquals(1, first.getFailed());
+        assertTrue(first.getDetections() > 0);
+        assertEquals(0, batchRunner.getBufferPool().getOutstanding());
+        final List<String> lines = Files.readAllLines(output.resolve("sub/second.csv"), StandardCharsets.UTF_8);
+        assertEquals(first.getDetections() / 2 + 1, lines.size());
+        assertFalse(Files.exists(output.resolve("sub/broken.csv")));
+        assertFalse(Files.exists(output.resolve("sub/broken.csv.part")));
+
+        // outputs done are skipped, the broken file is tried again; virtual ingestion, which is the platform pool before Java 21
+        final BatchStats second = new BatchRunner(FFTService::new, true, ReSampler.Quality.LOW, BUFFER_SIZE, SinkFormat.CSV, output, 1,
+                Ingestion.VIRTUAL).run(this.directory.resolve("in"), files);
+        assertEquals(0, second.getProcessed());
+        assertEquals(2, second.getSkipped());
+        assertEquals(1, second.getFailed());
+
+        // another threshold gives other outputs
+        final BatchStats third = new BatchRunner(FFTService::new, true, ReSampler.Quality.LOW, BUFFER_SIZE, SinkFormat.CSV, output, 1,
+                Ingestion.PLATFORM, 150).run(this.directory.resolve("in"), files);
+        assertEquals(2, third.getProcessed());
+        assertEquals(0, third.getSkipped());
+    }
+
+    @Test
+    void appliesThePowerThreshold() throws Exception {
+        final Path source = Paths.get(BatchRunnerTest.class.getClassLoader().getResource("g_tdd_120_01.wav").toURI());
+        final Path input = Files.createDirectories(this.directory.resolve("in"));
+        Files.copy(source, input.resolve("first.wav"));
+
+        final BatchRunner batchRunner = new BatchRunner(FFTService::new, true, ReSampler.Quality.LOW, BUFFER_SIZE, SinkFormat.CSV,
+                this.directory.resolve("out"), 1, Ingestion.PLATFORM, Double.POSITIVE_INFINITY);
+        final BatchStats batchStats = batchRunner.run(input, BatchRunner.listFiles(input.toString()));
+        assertEquals(1, batchStats.getProcessed());
+        assertEquals(0, batchStats.getDetections());
+    }
+
+    @Test
+    void listsFilesMatchingAGlob() throws Exception {
+        Files.createDirectories(this.directory.resolve("a/b"));
+        Files.write(this.directory.resolve("a/one.wav"), new byte[0]);
+        Files.write(this.directory.resolve("a/b/two.wav"), new byte[0]);
+        Files.write(this.directory.resolve("a/b/three.txt"), new byte[0]);
+
+        final String pattern = this.directory.resolve("a").toString() + "/**.wav";
+        assertEquals(this.directory.resolve("a"), BatchRunner.globBase(pattern));
+        assertEquals(List.of(this.directory.resolve("a/b/two.wav"), this.directory.resolve("a/one.wav")), BatchRunner.listFiles(pattern));
+    }
+}
@@ -0,0 +1,61 @@
+package stream.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.fft.DetectionEngine;
+import stream.fft.DetectionEngineType;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Cost of turning one chunk into detections, per engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DetectionBenchmark {
+
+    @Param({"FFT", "GOERTZEL"})
+    private DetectionEngineType engineType;
+
+    private DetectionEngine detectionEngine;
+    private SampleChunk sampleChunk;
+
+    @Setup
+    public void setUp() {
+        this.detectionEngine = this.engineType.create();
+        final MusicalRange musicalRange = MusicalRange.A;
+        final float sampleRate = musicalRange.getSampleRate();
+        final Random random = new Random(42);
+        final short[] samples = new short[BUFFER_SIZE];
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            final double tone = Math.sin(2 * Math.PI * 440 * i / sampleRate);
+            samples[i] = (short) (8000 * tone + 500 * random.nextGaussian());
+        }
+        this.sampleChunk = new SampleChunk(0, samples, sampleRate, musicalRange, 0, BUFFER_SIZE / sampleRate);
+    }
+
+    @Benchmark
+    public List<Detection> detect() {
+        return this.detectionEngine.detect(this.sampleChunk, 100);
+    }
+}
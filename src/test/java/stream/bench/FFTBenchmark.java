@@ -0,0 +1,99 @@
+package stream.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.fft.Complex;
+import stream.fft.FFT;
+import stream.fft.FloatRealFFT;
+import stream.fft.InPlaceFFT;
+import stream.fft.RealFFT;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transform cost per size, for the Complex[] API and the primitive engines.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FFTBenchmark {
+
+    @Param({"512", "1024", "2048", "4096", "8192", "16384"})
+    private int size;
+
+    private double[] samples;
+    private Complex[] complexSamples;
+    private InPlaceFFT inPlaceFFT;
+    private RealFFT realFFT;
+    private FloatRealFFT floatRealFFT;
+    private double[] re;
+    private double[] im;
+    private float[] floatSamples;
+    private float[] floatRe;
+    private float[] floatIm;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        this.samples = new double[this.size];
+        this.complexSamples = new Complex[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.samples[i] = 2 * random.nextDouble() - 1;
+            this.complexSamples[i] = new Complex(this.samples[i], 0);
+        }
+        this.inPlaceFFT = new InPlaceFFT(this.size);
+        this.realFFT = new RealFFT(this.size);
+        this.re = new double[this.size];
+        this.im = new double[this.size];
+        this.floatRealFFT = new FloatRealFFT(this.size);
+        this.floatSamples = new float[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.floatSamples[i] = (float) this.samples[i];
+        }
+        this.floatRe = new float[this.size / 2 + 1];
+        this.floatIm = new float[this.size / 2 + 1];
+    }
+
+    @Benchmark
+    public Complex[] complexFFT() {
+        return FFT.fft(this.complexSamples);
+    }
+
+    @Benchmark
+    public double[] inPlaceFFT() {
+        System.arraycopy(this.samples, 0, this.re, 0, this.size);
+        Arrays.fill(this.im, 0);
+        this.inPlaceFFT.fft(this.re, this.im);
+        return this.re;
+    }
+
+    @Benchmark
+    public double[] realFFT() {
+        this.realFFT.fft(this.samples, this.re, this.im);
+        return this.re;
+    }
+
+    @Benchmark
+    public float[] floatRealFFT() {
+        for (int k = 0; k < this.size / 2; k++) {
+            this.floatRe[k] = this.floatSamples[2 * k];
+            this.floatIm[k] = this.floatSamples[2 * k + 1];
+        }
+        this.floatRealFFT.fftPacked(this.floatRe, this.floatIm);
+        return this.floatRe;
+    }
+}
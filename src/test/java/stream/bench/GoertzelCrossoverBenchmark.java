@@ -0,0 +1,75 @@
+package stream.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.fft.Goertzel;
+import stream.fft.RealFFT;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * Goertzel bank of k bins against a full real FFT of the same chunk:
+ * the k where goertzel overtakes realFFT is the crossover.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GoertzelCrossoverBenchmark {
+
+    @Param({"1", "2", "5", "8", "12", "16", "24", "32"})
+    private int bins;
+
+    private short[] samples;
+    private Goertzel goertzel;
+    private RealFFT realFFT;
+    private double[] re;
+    private double[] im;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        this.samples = new short[BUFFER_SIZE];
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            this.samples[i] = (short) random.nextInt();
+        }
+        final int[] indexes = new int[this.bins];
+        for (int b = 0; b < this.bins; b++) {
+            indexes[b] = 1 + b * (BUFFER_SIZE / 2 - 1) / this.bins;
+        }
+        this.goertzel = new Goertzel(BUFFER_SIZE, indexes);
+        this.realFFT = new RealFFT(BUFFER_SIZE);
+        this.re = new double[Math.max(this.bins, this.realFFT.bins())];
+        this.im = new double[Math.max(this.bins, this.realFFT.bins())];
+    }
+
+    @Benchmark
+    public double[] goertzel() {
+        this.goertzel.compute(this.samples, Short.MAX_VALUE, this.re, this.im);
+        return this.re;
+    }
+
+    @Benchmark
+    public double[] realFFT() {
+        for (int i = 0; i < BUFFER_SIZE / 2; i++) {
+            this.re[i] = this.samples[2 * i] / (double) Short.MAX_VALUE;
+            this.im[i] = this.samples[2 * i + 1] / (double) Short.MAX_VALUE;
+        }
+        this.realFFT.fftPacked(this.re, this.im);
+        return this.re;
+    }
+}
@@ -0,0 +1,78 @@
+package stream.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import stream.model.MusicalRange;
+import stream.reader.DecodedAudio;
+import stream.reader.ReSampler;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Decoding and resampling throughput on the bundled recordings.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+
+    @Param({"B_string.wav", "a.wav", "arpeggios.wav", "g_tdd_120_01.wav"})
+    private String fileName;
+
+    private DecodedAudio decodedAudio;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.decodedAudio = decode(this.fileName);
+    }
+
+    // decoding the resource into per channel samples
+    @Benchmark
+    public DecodedAudio decode() throws Exception {
+        return decode(this.fileName);
+    }
+
+    // resampling every channel of the decoded file to every musical range rate
+    @Benchmark
+    public void resample(final Blackhole blackhole) {
+        final float[] block = new float[8192];
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            for (int channelIndex = 0; channelIndex < this.decodedAudio.getChannelNumber(); channelIndex++) {
+                final ReSampler reSampler = new ReSampler(this.decodedAudio.getSampleRate(), musicalRange.getSampleRate());
+                final float[] out = new float[reSampler.maxOutput(block.length)];
+                long position = 0;
+                int read;
+                while ((read = this.decodedAudio.read(channelIndex, position, block, block.length)) > 0) {
+                    position += read;
+                    blackhole.consume(reSampler.process(block, 0, read, out, 0));
+                }
+                blackhole.consume(reSampler.flush(out, 0));
+            }
+        }
+    }
+
+    private static DecodedAudio decode(final String fileName) throws Exception {
+        try (final InputStream resourceAsStream = IngestBenchmark.class.getClassLoader().getResourceAsStream(fileName);
+             final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(resourceAsStream))) {
+            return DecodedAudio.decode(audioInputStream);
+        }
+    }
+}
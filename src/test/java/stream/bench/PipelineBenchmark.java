@@ -0,0 +1,44 @@
+package stream.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.fft.DetectionEngineType;
+import stream.model.Detection;
+import stream.prepare.Pipelines;
+import stream.prepare.PrepareWorker;
+import stream.reader.ReSampler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency on the bundled recordings, from the resource to the sorted detections.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"B_string.wav", "a.wav", "arpeggios.wav", "g_tdd_120_01.wav"})
+    private String fileName;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    @Benchmark
+    public List<Detection> endToEnd() throws InterruptedException {
+        return Pipelines.detect(this.fileName, ReSampler.Quality.MEDIUM, DetectionEngineType.FFT, this.parallelism,
+                PrepareWorker.POWER_THRESHOLD);
+    }
+}
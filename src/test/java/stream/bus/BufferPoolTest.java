@@ -0,0 +1,48 @@
+package stream.bus;
+
+import org.junit.jupiter.api.Test;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BufferPoolTest {
+
+    @Test
+    void reusesReleasedBuffers() {
+        final BufferPool bufferPool = new BufferPool(16, 2);
+        final PooledBuffer pooledBuffer = new PooledBuffer(bufferPool);
+        final short[] first = pooledBuffer.getSamples();
+        final SampleChunk chunk = new SampleChunk(0, pooledBuffer, 0, 1, MusicalRange.A, 0, 1);
+        assertEquals(1, bufferPool.getOutstanding());
+
+        chunk.retain();
+        chunk.release();
+        assertEquals(1, bufferPool.getOutstanding());
+        chunk.release();
+        assertEquals(0, bufferPool.getOutstanding());
+        assertThrows(IllegalStateException.class, chunk::release);
+
+        assertSame(first, bufferPool.acquire());
+        assertEquals(1, bufferPool.getHits());
+        assertEquals(1, bufferPool.getMisses());
+    }
+
+    @Test
+    void dropsBuffersBeyondCapacity() {
+        final BufferPool bufferPool = new BufferPool(16, 2);
+        final short[] a = bufferPool.acquire();
+        final short[] b = bufferPool.acquire();
+        final short[] c = bufferPool.acquire();
+        bufferPool.release(a);
+        bufferPool.release(b);
+        bufferPool.release(c);
+
+        assertEquals(2, bufferPool.getFree());
+        assertEquals(1, bufferPool.getDropped());
+        assertEquals(0, bufferPool.getOutstanding());
+        assertThrows(IllegalArgumentException.class, () -> bufferPool.release(new short[8]));
+    }
+}
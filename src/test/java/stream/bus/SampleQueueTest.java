@@ -0,0 +1,122 @@
+package stream.bus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SampleQueueTest {
+
+    @Test
+    void ringBufferIsBounded() {
+        final RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        assertEquals(4, ringBuffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ringBuffer.offer(i));
+        }
+        assertFalse(ringBuffer.offer(4));
+        assertEquals(0, ringBuffer.poll());
+        assertTrue(ringBuffer.offer(4));
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(i, ringBuffer.poll());
+        }
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    void ringBufferOfOneDoesNotOverwrite() {
+        final RingBuffer<Integer> ringBuffer = new RingBuffer<>(1);
+        assertEquals(2, ringBuffer.capacity());
+        assertTrue(ringBuffer.offer(0));
+        assertTrue(ringBuffer.offer(1));
+        assertFalse(ringBuffer.offer(2));
+        assertEquals(0, ringBuffer.poll());
+        assertEquals(1, ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    void blockingProducersAndConsumers() throws InterruptedException {
+        this.transfer(new SampleQueue<>(8, WaitStrategy.blocking()));
+    }
+
+    @Test
+    void spinningProducersAndConsumers() throws InterruptedException {
+        this.transfer(new SampleQueue<>(8, WaitStrategy.spinning()));
+    }
+
+    @Test
+    void closesAfterLastProducer() throws InterruptedException {
+        final SampleQueue<String> sampleQueue = new SampleQueue<>();
+        sampleQueue.registerProducer();
+        sampleQueue.registerProducer();
+        sampleQueue.push("a");
+        sampleQueue.producerDone();
+        assertFalse(sampleQueue.isClosed());
+
+        assertEquals("a", sampleQueue.take(10, TimeUnit.MILLISECONDS));
+        assertNull(sampleQueue.take(10, TimeUnit.MILLISECONDS));
+        assertFalse(sampleQueue.isDrained());
+
+        sampleQueue.push("b");
+        sampleQueue.producerDone();
+        assertTrue(sampleQueue.isClosed());
+        assertEquals("b", sampleQueue.take());
+        assertNull(sampleQueue.take());
+        assertTrue(sampleQueue.isDrained());
+    }
+
+    private void transfer(final SampleQueue<Long> sampleQueue) throws InterruptedException {
+        final int producers = 3;
+        final int consumers = 3;
+        final long perProducer = 20_000;
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong count = new AtomicLong();
+
+        final List<Thread> producerThreads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            sampleQueue.registerProducer();
+            final Thread thread = new Thread(() -> {
+                for (long i = 1; i <= perProducer; i++) {
+                    sampleQueue.push(i);
+                }
+                sampleQueue.producerDone();
+            });
+            producerThreads.add(thread);
+            thread.start();
+        }
+        final List<Thread> consumerThreads = new ArrayList<>();
+        for (int c = 0; c < consumers; c++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    Long value;
+                    while ((value = sampleQueue.take()) != null) {
+                        sum.addAndGet(value);
+                        count.incrementAndGet();
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            consumerThreads.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : producerThreads) {
+            thread.join();
+        }
+        for (final Thread thread : consumerThreads) {
+            thread.join(10_000);
+            assertFalse(thread.isAlive());
+        }
+
+        assertEquals(producers * perProducer, count.get());
+        assertEquals(producers * perProducer * (perProducer + 1) / 2, sum.get());
+    }
+}
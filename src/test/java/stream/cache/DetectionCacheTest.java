@@ -0,0 +1,116 @@
+package stream.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DetectionCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysTheRecordedDetectionsWithAnotherThreshold() throws IOException {
+        final DetectionCache detectionCache = new DetectionCache(this.directory, 1 << 20);
+        final List<Detection> passed = new ArrayList<>();
+        try (final DetectionCache.Writer writer = detectionCache.writer("key", 100, passed::add)) {
+            writer.accept(new Detection(0, "C1", MusicalRange.C, 1, 32.7, 50));
+            writer.accept(new Detection(0, "Bb5", MusicalRange.Bb, 5, 932.3, 150));
+            writer.accept(new Detection(0.2f, "G3", MusicalRange.G, 3, 196, 250));
+            writer.commit();
+        }
+        assertEquals(2, passed.size());
+
+        final List<Detection> replayed = new ArrayList<>();
+        assertTrue(detectionCache.replay("key", 40, replayed::add));
+        assertEquals(3, replayed.size());
+        assertEquals("C1", replayed.get(0).getNote());
+        assertEquals("Bb5", replayed.get(1).getNote());
+        assertEquals(MusicalRange.Bb, replayed.get(1).getMusicalRange());
+        assertEquals(5, replayed.get(1).getOctave());
+        assertEquals(932.3, replayed.get(1).getFrequency());
+        assertEquals(0.2f, replayed.get(2).getStartTime());
+        assertEquals(250, replayed.get(2).getPower());
+
+        replayed.clear();
+        assertTrue(detectionCache.replay("key", 200, replayed::add));
+        assertEquals(1, replayed.size());
+    }
+
+    @Test
+    void recordsOctavesOfAnyWidth() throws IOException {
+        final DetectionCache detectionCache = new DetectionCache(this.directory, 1 << 20);
+        try (final DetectionCache.Writer writer = detectionCache.writer("key", 0, detection -> { })) {
+            writer.accept(new Detection(0, "C10", MusicalRange.C, 10, 33488, 50));
+            writer.accept(new Detection(0, "A-1", MusicalRange.A, -1, 13.75, 50));
+            writer.commit();
+        }
+        final List<Detection> replayed = new ArrayList<>();
+        assertTrue(detectionCache.replay("key", 0, replayed::add));
+        assertEquals("C10", replayed.get(0).getNote());
+        assertEquals(10, replayed.get(0).getOctave());
+        assertEquals("A-1", replayed.get(1).getNote());
+        assertEquals(MusicalRange.A, replayed.get(1).getMusicalRange());
+        assertEquals(-1, replayed.get(1).getOctave());
+    }
+
+    @Test
+    void discardsWhatIsNotCommitted() throws IOException {
+        final DetectionCache detectionCache = new DetectionCache(this.directory, 1 << 20);
+        try (final DetectionCache.Writer writer = detectionCache.writer("key", 100, detection -> { })) {
+            writer.accept(new Detection(0, "A4", MusicalRange.A, 4, 440, 500));
+        }
+        assertFalse(detectionCache.replay("key", 100, detection -> { }));
+        try (final Stream<Path> files = Files.list(this.directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntriesOverTheBudget() throws IOException {
+        // three entries of 4 + 10 * 23 bytes, room for two
+        final DetectionCache detectionCache = new DetectionCache(this.directory, 2 * 234);
+        for (final String key : List.of("a", "b")) {
+            this.write(detectionCache, key);
+        }
+        Files.setLastModifiedTime(this.directory.resolve("a.det"), FileTime.fromMillis(1000));
+        Files.setLastModifiedTime(this.directory.resolve("b.det"), FileTime.fromMillis(2000));
+        // a hit makes a the most recent
+        assertTrue(detectionCache.replay("a", 0, detection -> { }));
+        this.write(detectionCache, "c");
+
+        assertTrue(detectionCache.replay("a", 0, detection -> { }));
+        assertFalse(detectionCache.replay("b", 0, detection -> { }));
+        assertTrue(detectionCache.replay("c", 0, detection -> { }));
+    }
+
+    @Test
+    void keysDependOnTheSettings() throws IOException {
+        assertEquals(DetectionCache.key("a.wav", List.of("FFT", 4096)), DetectionCache.key("a.wav", List.of("FFT", 4096)));
+        assertNotEquals(DetectionCache.key("a.wav", List.of("FFT", 4096)), DetectionCache.key("a.wav", List.of("FFT", 1024)));
+        assertNotEquals(DetectionCache.key("a.wav", List.of("FFT")), DetectionCache.key("B_string.wav", List.of("FFT")));
+    }
+
+    private void write(final DetectionCache detectionCache, final String key) throws IOException {
+        try (final DetectionCache.Writer writer = detectionCache.writer(key, 0, detection -> { })) {
+            for (int i = 0; i < 10; i++) {
+                writer.accept(new Detection(i, "E2", MusicalRange.E, 2, 82.4, i));
+            }
+            writer.commit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.prepare.Pipelines;
+import stream.reader.ReSampler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static stream.prepare.PrepareWorker.POWER_THRESHOLD;
+
+class FloatFFTServiceTest {
+
+    @Test
+    void matchesTheDoublePrecisionEngineOnTheBundledFiles() throws InterruptedException {
+        for (final String fileName : List.of("B_string.wav", "a.wav", "g_tdd_120_01.wav")) {
+            // every harmonic inspected, whatever its power
+            final List<Detection> expected = Pipelines.detect(fileName, ReSampler.Quality.MEDIUM, DetectionEngineType.FFT, 1,
+                    Double.NEGATIVE_INFINITY);
+            final List<Detection> actual = Pipelines.detect(fileName, ReSampler.Quality.MEDIUM, DetectionEngineType.FFT32, 1,
+                    Double.NEGATIVE_INFINITY);
+            assertEquals(expected.size(), actual.size(), fileName);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getStartTime(), actual.get(i).getStartTime(), fileName);
+                assertEquals(expected.get(i).getNote(), actual.get(i).getNote(), fileName);
+                assertEquals(expected.get(i).getFrequency(), actual.get(i).getFrequency(), fileName);
+                final double power = expected.get(i).getPower();
+                assertEquals(power, actual.get(i).getPower(), 1e-4 * Math.max(power, POWER_THRESHOLD), fileName);
+            }
+        }
+    }
+}
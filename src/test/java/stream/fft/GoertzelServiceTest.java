@@ -0,0 +1,40 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static stream.App.BUFFER_SIZE;
+
+class GoertzelServiceTest {
+
+    @Test
+    void sameDetectionsAsFFT() {
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            final float sampleRate = musicalRange.getSampleRate();
+            final short[] samples = new short[BUFFER_SIZE];
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                final double phase = 2 * Math.PI * i / BUFFER_SIZE;
+                samples[i] = (short) (8000 * Math.sin(phase * musicalRange.getBaseIndex())
+                        + 4000 * Math.sin(phase * musicalRange.getBaseIndex() * 4));
+            }
+            final SampleChunk sampleChunk = new SampleChunk(0, samples, sampleRate, musicalRange, 0, 1);
+
+            final List<Detection> expected = new FFTService().detect(sampleChunk, 100);
+            final List<Detection> actual = new GoertzelService().detect(sampleChunk, 100);
+
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getNote(), actual.get(i).getNote());
+                assertEquals(expected.get(i).getFrequency(), actual.get(i).getFrequency(), 1e-9);
+                assertEquals(expected.get(i).getPower(), actual.get(i).getPower(), 1e-6);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+import static stream.fft.DetectionEngine.HARMONICS;
+
+class HarmonicDetectorTest {
+
+    private static final double[] THRESHOLDS = {100, 0, Double.NEGATIVE_INFINITY};
+
+    @Test
+    void sameDetectionsAsThresholdingTheMagnitude() {
+        final Random random = new Random(42);
+        final double[] re = new double[BUFFER_SIZE / 2 + 1];
+        final double[] im = new double[BUFFER_SIZE / 2 + 1];
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            final HarmonicTable harmonicTable = HarmonicTable.of(musicalRange);
+            final SampleChunk sampleChunk = new SampleChunk(0, new short[BUFFER_SIZE], harmonicTable.getSampleRate(), musicalRange, 0, 1);
+            for (int k = 0; k < re.length; k++) {
+                re[k] = 200 * random.nextGaussian();
+                im[k] = 200 * random.nextGaussian();
+            }
+            // a bin exactly on the threshold is not a detection
+            re[harmonicTable.bin(0)] = 100;
+            im[harmonicTable.bin(0)] = 0;
+            for (final double threshold : THRESHOLDS) {
+                final List<Detection> expected = new ArrayList<>();
+                for (int i = 0; i < HARMONICS; i++) {
+                    final double power = Math.hypot(re[harmonicTable.bin(i)], im[harmonicTable.bin(i)]);
+                    if (power > threshold) {
+                        expected.add(new Detection(sampleChunk.getStartTime(), harmonicTable.note(i),
+                                harmonicTable.frequency(i, sampleChunk.getSampleRate()), power));
+                    }
+                }
+                assertSameDetections(expected, HarmonicDetector.detect(sampleChunk, harmonicTable, re, im, threshold));
+            }
+        }
+    }
+
+    @Test
+    void floatSpectraGiveTheFloatMagnitude() {
+        final HarmonicTable harmonicTable = HarmonicTable.of(MusicalRange.A);
+        final SampleChunk sampleChunk = new SampleChunk(0, new short[BUFFER_SIZE], harmonicTable.getSampleRate(), MusicalRange.A, 0, 1);
+        final float[] re = new float[BUFFER_SIZE / 2 + 1];
+        final float[] im = new float[BUFFER_SIZE / 2 + 1];
+        for (int i = 0; i < HARMONICS; i++) {
+            re[harmonicTable.bin(i)] = 30 * (i + 1);
+            im[harmonicTable.bin(i)] = 40 * (i + 1);
+        }
+        final List<Detection> detections = HarmonicDetector.detect(sampleChunk, harmonicTable, re, im, 100);
+        // magnitudes 50, 100, 150, 200 and 250
+        assertEquals(3, detections.size());
+        assertEquals(harmonicTable.note(2), detections.get(0).getNote());
+        assertEquals(150, detections.get(0).getPower());
+    }
+
+    @Test
+    void silenceGivesNoDetection() {
+        final HarmonicTable harmonicTable = HarmonicTable.of(MusicalRange.C);
+        final SampleChunk sampleChunk = new SampleChunk(0, new short[BUFFER_SIZE], harmonicTable.getSampleRate(), MusicalRange.C, 0, 1);
+        final List<Detection> detections = HarmonicDetector.detectHarmonics(sampleChunk, harmonicTable, new double[HARMONICS],
+                new double[HARMONICS], 100);
+        assertTrue(detections.isEmpty());
+    }
+
+    private static void assertSameDetections(final List<Detection> expected, final List<Detection> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getNote(), actual.get(i).getNote());
+            assertEquals(expected.get(i).getFrequency(), actual.get(i).getFrequency());
+            assertEquals(expected.get(i).getPower(), actual.get(i).getPower());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.MusicalRange;
+import stream.model.PitchTable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static stream.App.BUFFER_SIZE;
+import static stream.fft.DetectionEngine.HARMONICS;
+
+class HarmonicTableTest {
+
+    @Test
+    void matchesThePitchTableForEachHarmonic() {
+        final PitchTable pitchTable = PitchTable.current();
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            final HarmonicTable harmonicTable = HarmonicTable.of(musicalRange);
+            final float sampleRate = pitchTable.getSampleRate(musicalRange);
+            for (int i = 0; i < HARMONICS; i++) {
+                final int bin = pitchTable.getBaseIndex() * (int) Math.pow(2, i);
+                assertEquals(bin, harmonicTable.bin(i));
+                // bins are sampleRate / fftSize wide, harmonic i is the pitch class in octave i + 1
+                assertEquals(bin * (sampleRate / (double) pitchTable.getFftSize()), harmonicTable.frequency(i, sampleRate));
+                assertEquals(pitchTable.getBaseFrequency(musicalRange) * (1 << i), harmonicTable.frequency(i, sampleRate),
+                        1e-4 * harmonicTable.frequency(i, sampleRate));
+                assertEquals(bin * (8000 / (double) pitchTable.getFftSize()), harmonicTable.frequency(i, 8000));
+                assertEquals(String.format("%s%d", musicalRange, i + 1), harmonicTable.note(i));
+            }
+        }
+    }
+
+    @Test
+    void sharesPlansBySize() {
+        assertSame(RealFFT.of(BUFFER_SIZE), RealFFT.of(BUFFER_SIZE));
+        assertSame(InPlaceFFT.of(BUFFER_SIZE / 2), InPlaceFFT.of(BUFFER_SIZE / 2));
+        assertEquals(64, RealFFT.of(64).size());
+    }
+}
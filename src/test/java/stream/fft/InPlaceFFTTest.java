@@ -0,0 +1,89 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class InPlaceFFTTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesNaiveDft() {
+        for (final int n : new int[]{1, 2, 8, 64, 1024}) {
+            final double[] re = randomArray(n, 1);
+            final double[] im = randomArray(n, 2);
+            final double[][] expected = dft(re, im);
+
+            new InPlaceFFT(n).fft(re, im);
+
+            assertArrayEquals(expected[0], re, EPSILON * n);
+            assertArrayEquals(expected[1], im, EPSILON * n);
+        }
+    }
+
+    @Test
+    void inverseRestoresInput() {
+        final int n = 4096;
+        final double[] re = randomArray(n, 3);
+        final double[] im = randomArray(n, 4);
+        final double[] re0 = re.clone();
+        final double[] im0 = im.clone();
+
+        final InPlaceFFT fft = new InPlaceFFT(n);
+        fft.fft(re, im);
+        fft.ifft(re, im);
+
+        assertArrayEquals(re0, re, EPSILON);
+        assertArrayEquals(im0, im, EPSILON);
+    }
+
+    @Test
+    void complexWrapperDelegates() {
+        final int n = 256;
+        final double[] re = randomArray(n, 5);
+        final Complex[] x = new Complex[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = new Complex(re[i], 0);
+        }
+        final double[] im = new double[n];
+        new InPlaceFFT(n).fft(re, im);
+
+        final Complex[] y = FFT.fft(x);
+        for (int i = 0; i < n; i++) {
+            assertEquals(re[i], y[i].re(), EPSILON);
+            assertEquals(im[i], y[i].im(), EPSILON);
+        }
+    }
+
+    @Test
+    void rejectsNonPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new InPlaceFFT(12));
+    }
+
+    private static double[] randomArray(final int n, final long seed) {
+        final Random random = new Random(seed);
+        final double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 2 * random.nextDouble() - 1;
+        }
+        return values;
+    }
+
+    private static double[][] dft(final double[] re, final double[] im) {
+        final int n = re.length;
+        final double[][] out = new double[2][n];
+        for (int k = 0; k < n; k++) {
+            for (int t = 0; t < n; t++) {
+                final double angle = -2 * Math.PI * k * t / n;
+                out[0][k] += re[t] * Math.cos(angle) - im[t] * Math.sin(angle);
+                out[1][k] += re[t] * Math.sin(angle) + im[t] * Math.cos(angle);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,56 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.model.SampleChunk;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+
+class PolyphonicServiceTest {
+
+    private static final float SAMPLE_RATE = 44100;
+
+    @Test
+    void resolvesTheNotesOfAChord() {
+        // C major triad, each note with decaying partials
+        final SampleChunk chunk = chunk(130.8128, 164.8138, 195.9977);
+        final List<Detection> detections = new PolyphonicService(Window.HANN).detect(chunk, 100);
+        assertEquals(Set.of("C3", "E3", "G3"), notes(detections));
+    }
+
+    @Test
+    void reportsTheFundamentalAndNotItsPartials() {
+        final List<Detection> detections = new PolyphonicService(Window.HANN).detect(chunk(110), 100);
+        assertEquals(Set.of("A2"), notes(detections));
+        assertEquals(110, detections.get(0).getFrequency(), 1e-6);
+    }
+
+    @Test
+    void findsNothingInSilence() {
+        assertTrue(new PolyphonicService().detect(new SampleChunk(0, new short[BUFFER_SIZE], SAMPLE_RATE, null, 0, 0), 100).isEmpty());
+    }
+
+    private static SampleChunk chunk(final double... fundamentals) {
+        final short[] samples = new short[BUFFER_SIZE];
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            double value = 0;
+            for (final double fundamental : fundamentals) {
+                for (int partial = 1; partial <= 4; partial++) {
+                    value += 3000.0 / partial * Math.sin(2 * Math.PI * fundamental * partial * i / SAMPLE_RATE);
+                }
+            }
+            samples[i] = (short) value;
+        }
+        return new SampleChunk(0, samples, SAMPLE_RATE, null, 0, BUFFER_SIZE / SAMPLE_RATE);
+    }
+
+    private static Set<String> notes(final List<Detection> detections) {
+        return detections.stream().map(Detection::getNote).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,36 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RealFFTTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void matchesComplexTransform() {
+        for (final int n : new int[]{2, 4, 16, 4096}) {
+            final Random random = new Random(n);
+            final double[] input = new double[n];
+            for (int i = 0; i < n; i++) {
+                input[i] = 2 * random.nextDouble() - 1;
+            }
+            final double[] expectedRe = input.clone();
+            final double[] expectedIm = new double[n];
+            new InPlaceFFT(n).fft(expectedRe, expectedIm);
+
+            final RealFFT realFFT = new RealFFT(n);
+            final double[] re = new double[realFFT.bins()];
+            final double[] im = new double[realFFT.bins()];
+            realFFT.fft(input, re, im);
+
+            for (int k = 0; k < realFFT.bins(); k++) {
+                assertEquals(expectedRe[k], re[k], EPSILON, "re[" + k + "] for n=" + n);
+                assertEquals(expectedIm[k], im[k], EPSILON, "im[" + k + "] for n=" + n);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowTest {
+
+    private static final int N = 1024;
+
+    @Test
+    void keepsTheMagnitudeOfACentredSine() {
+        for (final Window window : Window.values()) {
+            assertEquals(N, magnitude(window, 100), 1e-6, window.name());
+        }
+    }
+
+    @Test
+    void reducesLeakageFarFromTheFrequency() {
+        // half way between two bins, looking 20 bins away
+        final double rectangular = leakage(Window.RECTANGULAR);
+        final double hann = leakage(Window.HANN);
+        final double blackmanHarris = leakage(Window.BLACKMAN_HARRIS);
+        assertTrue(hann < rectangular / 100, hann + " vs " + rectangular);
+        assertTrue(blackmanHarris < hann, blackmanHarris + " vs " + hann);
+    }
+
+    private static double leakage(final Window window) {
+        return magnitude(window, 100.5, 120) / magnitude(window, 100.5, 100);
+    }
+
+    private static double magnitude(final Window window, final int bin) {
+        return magnitude(window, bin, bin);
+    }
+
+    // magnitude at bin of the windowed unit cosine of frequency cycles per N samples, times 2
+    private static double magnitude(final Window window, final double frequency, final int bin) {
+        final double[] table = window.table(N);
+        double re = 0;
+        double im = 0;
+        for (int i = 0; i < N; i++) {
+            final double x = Math.cos(2 * Math.PI * frequency * i / N) * table[i];
+            re += x * Math.cos(2 * Math.PI * bin * i / N);
+            im -= x * Math.sin(2 * Math.PI * bin * i / N);
+        }
+        return 2 * Math.hypot(re, im);
+    }
+}
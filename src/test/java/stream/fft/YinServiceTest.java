@@ -0,0 +1,48 @@
+package stream.fft;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+import stream.model.SampleChunk;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+
+class YinServiceTest {
+
+    private static final float SAMPLE_RATE = 44100;
+
+    @Test
+    void estimatesTheFundamentalBetweenNotes() {
+        final List<Detection> detections = new YinService().detect(chunk(246.94, 1), 100);
+        assertEquals(1, detections.size());
+        assertEquals("B3", detections.get(0).getNote());
+        assertEquals(246.94, detections.get(0).getFrequency(), 0.1);
+        assertEquals((BUFFER_SIZE - YinService.SEGMENT) / SAMPLE_RATE, detections.get(0).getStartTime(), 1e-6);
+    }
+
+    @Test
+    void findsALowStringUnderItsStrongerOvertones() {
+        // second partial louder than the fundamental, as on a plucked low E
+        final List<Detection> detections = new YinService().detect(chunk(82.41, 3), 100);
+        assertEquals(1, detections.size());
+        assertEquals("E2", detections.get(0).getNote());
+        assertEquals(82.41, detections.get(0).getFrequency(), 0.05);
+    }
+
+    @Test
+    void findsNothingInSilence() {
+        assertTrue(new YinService().detect(new SampleChunk(0, new short[BUFFER_SIZE], SAMPLE_RATE, null, 0, 0), 100).isEmpty());
+    }
+
+    private static SampleChunk chunk(final double fundamental, final double secondPartial) {
+        final short[] samples = new short[BUFFER_SIZE];
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            final double phase = 2 * Math.PI * fundamental * i / SAMPLE_RATE;
+            samples[i] = (short) (4000 * (Math.sin(phase) + secondPartial * Math.sin(2 * phase) + 0.5 * Math.sin(3 * phase)));
+        }
+        return new SampleChunk(0, samples, SAMPLE_RATE, null, 0, BUFFER_SIZE / SAMPLE_RATE);
+    }
+}
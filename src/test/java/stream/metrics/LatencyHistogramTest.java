@@ -0,0 +1,57 @@
+package stream.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsKeepValuesWithinASixteenth() {
+        for (long value = 0; value < 1L << 40; value = value * 3 / 2 + 1) {
+            final int index = LatencyHistogram.index(value);
+            final long highest = LatencyHistogram.highestValue(index);
+            assertTrue(highest >= value, "value " + value);
+            assertTrue(highest - value <= value / 16, "value " + value);
+            assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value, "value " + value);
+        }
+    }
+
+    @Test
+    void reportsPercentilesOfTheRecordedValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500_500, histogram.getMeanNanos());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 / 16.0);
+        assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 / 16.0);
+        assertEquals(1_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    void isEmptyUntilSomethingIsRecorded() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(99));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+
+    @Test
+    void formatsIgnoringTheDefaultLocale() {
+        final Locale locale = Locale.getDefault();
+        // a decimal comma in German
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            final LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(1_500_000);
+            assertTrue(histogram.toString().contains("max 1.500 ms"), histogram.toString());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package stream.model;
+
+import org.junit.jupiter.api.Test;
+import stream.fft.HarmonicTable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static stream.App.BUFFER_SIZE;
+
+class PitchTableTest {
+
+    @Test
+    void generatesEqualTemperamentFromTheReference() {
+        final PitchTable pitchTable = new PitchTable(440, Tuning.EQUAL, BUFFER_SIZE, 11);
+        assertEquals(55, pitchTable.getBaseFrequency(MusicalRange.A), 1e-9);
+        assertEquals(32.7032, pitchTable.getBaseFrequency(MusicalRange.C), 1e-4);
+        assertEquals(61.7354, pitchTable.getBaseFrequency(MusicalRange.B), 1e-4);
+        for (final MusicalRange musicalRange : MusicalRange.values()) {
+            assertEquals(pitchTable.getBaseFrequency(musicalRange) / 11 * BUFFER_SIZE, pitchTable.getSampleRate(musicalRange), 1e-2);
+        }
+    }
+
+    @Test
+    void keepsTheReferenceInEveryTuning() {
+        final PitchTable equal = new PitchTable(432, Tuning.EQUAL, BUFFER_SIZE, 11);
+        for (final Tuning tuning : Tuning.values()) {
+            final PitchTable pitchTable = new PitchTable(432, tuning, BUFFER_SIZE, 11);
+            assertEquals(54, pitchTable.getBaseFrequency(MusicalRange.A), 1e-9);
+            if (tuning != Tuning.EQUAL) {
+                assertNotEquals(equal.getBaseFrequency(MusicalRange.E), pitchTable.getBaseFrequency(MusicalRange.E), 1e-3);
+            }
+        }
+        // a pure fifth above C
+        final PitchTable just = new PitchTable(440, Tuning.JUST, BUFFER_SIZE, 11);
+        assertEquals(just.getBaseFrequency(MusicalRange.C) * 3 / 2, just.getBaseFrequency(MusicalRange.G), 1e-9);
+    }
+
+    @Test
+    void harmonicTablesFollowTheCurrentPitchTable() {
+        final PitchTable previous = PitchTable.current();
+        try {
+            PitchTable.setCurrent(new PitchTable(415, Tuning.EQUAL, BUFFER_SIZE, 11));
+            final HarmonicTable harmonicTable = HarmonicTable.of(MusicalRange.A);
+            assertEquals(415 / 8.0, harmonicTable.frequency(0, harmonicTable.getSampleRate()), 1e-3);
+            assertEquals(MusicalRange.A.getSampleRate(), harmonicTable.getSampleRate());
+            // a transform twice as long at twice the rate keeps the bins on the same frequencies
+            PitchTable.setCurrent(new PitchTable(415, Tuning.EQUAL, 2 * BUFFER_SIZE, 11));
+            final HarmonicTable longer = HarmonicTable.of(MusicalRange.A);
+            assertEquals(2 * harmonicTable.getSampleRate(), longer.getSampleRate(), 1e-2);
+            assertEquals(415 / 8.0, longer.frequency(0, longer.getSampleRate()), 1e-3);
+            assertEquals(longer.getSampleRate(), MusicalRange.A.getSampleRate());
+        } finally {
+            PitchTable.setCurrent(previous);
+        }
+    }
+}
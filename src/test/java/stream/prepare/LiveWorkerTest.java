@@ -0,0 +1,89 @@
+package stream.prepare;
+
+import org.junit.jupiter.api.Test;
+import stream.bus.BufferPool;
+import stream.bus.SampleQueue;
+import stream.bus.WaitStrategy;
+import stream.fft.FFTService;
+import stream.model.Detection;
+import stream.reader.LiveReader;
+import stream.reader.ReSampler;
+import stream.reader.WavReader;
+
+import javax.sound.sampled.AudioFormat;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+
+class LiveWorkerTest {
+
+    private static final float RATE = 44100;
+
+    @Test
+    void emitsDetectionsOfAStream() throws InterruptedException {
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(BUFFER_SIZE), 64);
+        final List<Detection> detections = new CopyOnWriteArrayList<>();
+        final LiveWorker liveWorker = run(bufferPool, TimeUnit.SECONDS.toNanos(10), PrepareWorker.POWER_THRESHOLD, detections);
+
+        assertFalse(detections.isEmpty());
+        // A4, close to the second harmonic of the A range
+        assertTrue(detections.stream().anyMatch(d -> Math.abs(d.getFrequency() - 440) < 2));
+        assertTrue(liveWorker.getLatency().getCount() > 0);
+        assertEquals(0, liveWorker.getStaleChunks());
+        assertEquals(0, bufferPool.getOutstanding());
+    }
+
+    @Test
+    void appliesThePowerThreshold() throws InterruptedException {
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(BUFFER_SIZE), 64);
+        final List<Detection> detections = new CopyOnWriteArrayList<>();
+        final LiveWorker liveWorker = run(bufferPool, TimeUnit.SECONDS.toNanos(10), Double.POSITIVE_INFINITY, detections);
+
+        assertTrue(detections.isEmpty());
+        assertTrue(liveWorker.getLatency().getCount() > 0);
+    }
+
+    @Test
+    void skipsChunksOlderThanTheLatencyBound() throws InterruptedException {
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(BUFFER_SIZE), 64);
+        final List<Detection> detections = new CopyOnWriteArrayList<>();
+        final LiveWorker liveWorker = run(bufferPool, -1, PrepareWorker.POWER_THRESHOLD, detections);
+
+        assertTrue(detections.isEmpty());
+        assertEquals(0, liveWorker.getLatency().getCount());
+        assertTrue(liveWorker.getStaleChunks() > 0);
+        assertEquals(0, bufferPool.getOutstanding());
+    }
+
+    private static LiveWorker run(final BufferPool bufferPool, final long maxLatencyNanos, final double powerThreshold,
+                                  final List<Detection> detections)
+            throws InterruptedException {
+        final SampleQueue<?> sampleQueue = new SampleQueue<>(16, WaitStrategy.blocking());
+        final LiveReader liveReader = new LiveReader(new ByteArrayInputStream(sine(440, 2)), new AudioFormat(RATE, 16, 1, true, false),
+                sampleQueue, ReSampler.Quality.LOW, bufferPool, BUFFER_SIZE);
+        final LiveWorker liveWorker = new LiveWorker(FFTService::new, sampleQueue, 2, maxLatencyNanos, powerThreshold, detections::add);
+        final Thread reader = new Thread(liveReader);
+        reader.start();
+        liveWorker.run();
+        reader.join();
+        return liveWorker;
+    }
+
+    // little endian 16 bit PCM
+    private static byte[] sine(final double frequency, final int seconds) {
+        final int frames = (int) RATE * seconds;
+        final byte[] bytes = new byte[2 * frames];
+        for (int i = 0; i < frames; i++) {
+            final short value = (short) (10000 * Math.sin(2 * Math.PI * frequency * i / RATE));
+            bytes[2 * i] = (byte) value;
+            bytes[2 * i + 1] = (byte) (value >> 8);
+        }
+        return bytes;
+    }
+}
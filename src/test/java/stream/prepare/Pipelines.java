@@ -0,0 +1,37 @@
+package stream.prepare;
+
+import stream.bus.BufferPool;
+import stream.bus.SampleQueue;
+import stream.fft.DetectionEngineType;
+import stream.model.Detection;
+import stream.reader.ReSampler;
+import stream.reader.WavReader;
+
+import java.util.List;
+
+import static stream.App.BUFFER_SIZE;
+
+/**
+ * The pipeline of the tests and benchmarks: a file read on its own thread into
+ * a queue drained by a {@link PrepareWorker}, without sink.
+ */
+public final class Pipelines {
+
+    private Pipelines() {
+    }
+
+    // detections of the file in start time order, failing if a sample buffer is not returned to the pool
+    public static List<Detection> detect(final String fileName, final ReSampler.Quality quality, final DetectionEngineType engineType,
+                                         final int parallelism, final double powerThreshold) throws InterruptedException {
+        final SampleQueue sampleQueue = new SampleQueue();
+        final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, 2 * sampleQueue.capacity());
+        final Thread reader = new Thread(new WavReader(fileName, sampleQueue, quality, bufferPool, BUFFER_SIZE));
+        reader.start();
+        final List<Detection> detections = new PrepareWorker(engineType::create, sampleQueue, parallelism, null, powerThreshold).collect();
+        reader.join();
+        if (bufferPool.getOutstanding() != 0) {
+            throw new IllegalStateException("Leaked sample buffers: " + bufferPool);
+        }
+        return detections;
+    }
+}
@@ -0,0 +1,66 @@
+package stream.prepare;
+
+import org.junit.jupiter.api.Test;
+import stream.bus.SampleQueue;
+import stream.fft.DetectionEngineType;
+import stream.fft.HarmonicTable;
+import stream.model.Detection;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+import stream.reader.ReSampler;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static stream.App.BUFFER_SIZE;
+
+class PrepareWorkerTest {
+
+    @Test
+    void parallelDetectionsComeInTheSerialOrder() throws InterruptedException {
+        for (final String fileName : List.of("a.wav", "g_tdd_120_01.wav")) {
+            // every harmonic inspected, so that each chunk gives detections to order
+            final List<Detection> expected = Pipelines.detect(fileName, ReSampler.Quality.LOW, DetectionEngineType.FFT, 1,
+                    Double.NEGATIVE_INFINITY);
+            final List<Detection> actual = Pipelines.detect(fileName, ReSampler.Quality.LOW, DetectionEngineType.FFT, 4,
+                    Double.NEGATIVE_INFINITY);
+            assertFalse(expected.isEmpty());
+            assertEquals(expected.size(), actual.size(), fileName);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getStartTime(), actual.get(i).getStartTime(), fileName);
+                assertEquals(expected.get(i).getNote(), actual.get(i).getNote(), fileName);
+                assertEquals(expected.get(i).getFrequency(), actual.get(i).getFrequency(), fileName);
+                assertEquals(expected.get(i).getPower(), actual.get(i).getPower(), fileName);
+            }
+        }
+    }
+
+    @Test
+    void parallelDetectionsKeepTheQueueOrderOfTies() throws InterruptedException {
+        final List<Detection> expected = collectTies(1);
+        final List<Detection> actual = collectTies(2);
+        assertEquals(16, expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getPower(), actual.get(i).getPower());
+        }
+        // the loudest chunk was queued last
+        assertTrue(expected.get(0).getPower() < expected.get(15).getPower());
+    }
+
+    // a batch of chunks starting at the same time, as the channels of a stereo file, with the same note louder and louder
+    private static List<Detection> collectTies(final int parallelism) throws InterruptedException {
+        final SampleQueue<Object> sampleQueue = new SampleQueue<>();
+        final HarmonicTable harmonicTable = HarmonicTable.of(MusicalRange.A);
+        for (int chunk = 0; chunk < 16; chunk++) {
+            final short[] samples = new short[BUFFER_SIZE];
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                samples[i] = (short) (1000 * (chunk + 1) * Math.sin(2 * Math.PI * harmonicTable.bin(0) * i / BUFFER_SIZE));
+            }
+            sampleQueue.push(new SampleChunk(0, samples, harmonicTable.getSampleRate(), MusicalRange.A, 0, 1));
+        }
+        sampleQueue.close();
+        return new PrepareWorker(DetectionEngineType.FFT::create, sampleQueue, parallelism, null, 10).collect();
+    }
+}
@@ -0,0 +1,90 @@
+package stream.reader;
+
+import org.junit.jupiter.api.Test;
+import stream.bus.BufferPool;
+import stream.bus.SampleQueue;
+import stream.bus.WaitStrategy;
+import stream.model.MusicalRange;
+import stream.model.SampleChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static stream.App.BUFFER_SIZE;
+
+class ChunkWriterTest {
+
+    @Test
+    void cutsOverlappingChunksFromSharedStrips() {
+        final int hop = BUFFER_SIZE / 4;
+        final int length = 5 * BUFFER_SIZE + 100;
+        final List<SampleChunk> chunks = write(hop, length);
+
+        // every hop up to the last sample, the last chunk padded with zeros
+        assertEquals((length - BUFFER_SIZE + hop - 1) / hop + 1, chunks.size());
+        for (int c = 0; c < chunks.size(); c++) {
+            final SampleChunk chunk = chunks.get(c);
+            assertEquals(c * hop / 1000f, chunk.getStartTime(), 1e-4);
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                final int position = c * hop + i;
+                final short expected = (short) (position < length ? position % 1000 : 0);
+                assertEquals(expected, chunk.getChannelBytes()[chunk.getOffset() + i], "chunk " + c + " sample " + i);
+            }
+        }
+    }
+
+    @Test
+    void givesStripsBackOnceEveryChunkIsReleased() {
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(1000), 64);
+        final SampleQueue<SampleChunk> sampleQueue = new SampleQueue<>();
+        final ChunkWriter chunkWriter = new ChunkWriter(0, 1000, MusicalRange.A, sampleQueue, bufferPool, 1000);
+        chunkWriter.write(ramp(3 * BUFFER_SIZE), 0, 3 * BUFFER_SIZE);
+        chunkWriter.close();
+
+        SampleChunk chunk;
+        while ((chunk = sampleQueue.get()) != null) {
+            chunk.release();
+        }
+        assertEquals(0, bufferPool.getOutstanding());
+    }
+
+    @Test
+    void dropsTheOldestChunksWhenTheQueueIsFull() {
+        final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, 64);
+        final SampleQueue<SampleChunk> sampleQueue = new SampleQueue<>(2, WaitStrategy.blocking());
+        final ChunkWriter chunkWriter = new ChunkWriter(0, 1000, MusicalRange.A, sampleQueue, bufferPool, BUFFER_SIZE, true);
+        chunkWriter.write(ramp(5 * BUFFER_SIZE), 0, 5 * BUFFER_SIZE);
+
+        assertEquals(3, chunkWriter.getDropped());
+        assertEquals(3 * BUFFER_SIZE / 1000f, sampleQueue.get().getStartTime(), 1e-4);
+        assertEquals(4 * BUFFER_SIZE / 1000f, sampleQueue.get().getStartTime(), 1e-4);
+        assertEquals(2, bufferPool.getOutstanding());
+    }
+
+    private static List<SampleChunk> write(final int hop, final int length) {
+        final BufferPool bufferPool = new BufferPool(WavReader.bufferSize(hop), 64);
+        final SampleQueue<SampleChunk> sampleQueue = new SampleQueue<>();
+        final ChunkWriter chunkWriter = new ChunkWriter(0, 1000, MusicalRange.A, sampleQueue, bufferPool, hop);
+        final float[] samples = ramp(length);
+        // odd block size so chunks and strips end in the middle of a block
+        for (int offset = 0; offset < length; offset += 777) {
+            chunkWriter.write(samples, offset, Math.min(777, length - offset));
+        }
+        chunkWriter.close();
+        final List<SampleChunk> chunks = new ArrayList<>();
+        SampleChunk chunk;
+        while ((chunk = sampleQueue.get()) != null) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static float[] ramp(final int length) {
+        final float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = i % 1000;
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,50 @@
+package stream.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionTest {
+
+    @Test
+    void virtualThreadsWhereTheRuntimeHasThem() {
+        // Java 19 and 20 only have them with preview features enabled
+        if (Runtime.version().feature() >= 21) {
+            assertTrue(Ingestion.VIRTUAL.isAvailable());
+        } else if (Runtime.version().feature() < 19) {
+            assertFalse(Ingestion.VIRTUAL.isAvailable());
+        }
+        assertTrue(Ingestion.PLATFORM.isAvailable());
+        final Thread thread = Ingestion.VIRTUAL.threadFactory("reader").newThread(() -> { });
+        assertEquals("reader-0", thread.getName());
+    }
+
+    @Test
+    void runsConcurrencyTasksAtOnce() throws InterruptedException {
+        for (final Ingestion ingestion : Ingestion.values()) {
+            final ExecutorService executor = ingestion.executor("reader", 4);
+            // every task waits for the others, as readers blocked on their input
+            final CountDownLatch started = new CountDownLatch(4);
+            final CountDownLatch done = new CountDownLatch(4);
+            for (int i = 0; i < 4; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        started.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS), ingestion.toString());
+            executor.shutdown();
+        }
+    }
+}
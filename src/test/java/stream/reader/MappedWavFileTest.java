@@ -0,0 +1,85 @@
+package stream.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedWavFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sameSamplesAsAudioInputStream() throws Exception {
+        // stereo, and a file with a bext chunk before fmt
+        for (final String fileName : new String[]{"arpeggios.wav", "g_tdd_120_01.wav"}) {
+            final DecodedAudio decodedAudio = decode(fileName);
+            final Path path = Paths.get(MappedWavFileTest.class.getClassLoader().getResource(fileName).toURI());
+            try (final MappedWavFile mappedWavFile = MappedWavFile.open(path)) {
+                assertEquals(decodedAudio.getSampleRate(), mappedWavFile.getSampleRate());
+                assertEquals(decodedAudio.getChannelNumber(), mappedWavFile.getChannelNumber());
+                assertEquals(decodedAudio.getFrameLength(), mappedWavFile.getFrameLength());
+                for (int channelIndex = 0; channelIndex < decodedAudio.getChannelNumber(); channelIndex++) {
+                    assertArrayEquals(readAll(decodedAudio, channelIndex), readAll(mappedWavFile, channelIndex));
+                }
+            }
+        }
+    }
+
+    private static float[] readAll(final AudioSource audioSource, final int channelIndex) {
+        final float[] samples = new float[(int) audioSource.getFrameLength()];
+        final float[] block = new float[1000];
+        int position = 0;
+        int read;
+        while ((read = audioSource.read(channelIndex, position, block, block.length)) > 0) {
+            System.arraycopy(block, 0, samples, position, read);
+            position += read;
+        }
+        return samples;
+    }
+
+    @Test
+    void rejectsMalformedFmtChunks() throws Exception {
+        final Path shortFmt = this.directory.resolve("short.wav");
+        Files.write(shortFmt, wav(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putShort((short) 1).putShort((short) 1)));
+        assertThrows(UnsupportedAudioFileException.class, () -> MappedWavFile.open(shortFmt));
+
+        final Path noChannel = this.directory.resolve("silent.wav");
+        Files.write(noChannel, wav(ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN)
+                .putShort((short) 1).putShort((short) 0).putInt(44100).putInt(0).putShort((short) 0).putShort((short) 16)));
+        final UnsupportedAudioFileException e = assertThrows(UnsupportedAudioFileException.class, () -> MappedWavFile.open(noChannel));
+        assertTrue(e.getMessage().contains("0 channels"));
+    }
+
+    // RIFF/WAVE file with the given fmt body and 4 bytes of data
+    private static byte[] wav(final ByteBuffer fmt) {
+        final ByteBuffer file = ByteBuffer.allocate(12 + 8 + fmt.capacity() + 8 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        file.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(file.capacity() - 8).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        file.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(fmt.capacity()).put(fmt.array());
+        file.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(4);
+        return file.array();
+    }
+
+    private static DecodedAudio decode(final String fileName) throws Exception {
+        try (final InputStream resourceAsStream = MappedWavFileTest.class.getClassLoader().getResourceAsStream(fileName);
+             final AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(new BufferedInputStream(resourceAsStream))) {
+            return DecodedAudio.decode(audioInputStream);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package stream.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PcmConverterTest {
+
+    @Test
+    void samplesOfEveryWidthShareThe16BitScale() {
+        final short[] expected = {0, 1000, -1000, Short.MAX_VALUE, Short.MIN_VALUE};
+        for (final int bytesPerSample : new int[]{2, 3, 4}) {
+            // stereo frames, the right channel holds the opposite of the left one
+            final ByteBuffer buffer = ByteBuffer.allocate(expected.length * 2 * bytesPerSample).order(ByteOrder.LITTLE_ENDIAN);
+            for (final short value : expected) {
+                put(buffer, value, bytesPerSample);
+                put(buffer, (short) -value, bytesPerSample);
+            }
+            final float[] left = new float[expected.length];
+            PcmConverter.toFloatInShortUnits(buffer, bytesPerSample, 2, 0, 0, expected.length, left, 0);
+            final float[] right = new float[expected.length - 1];
+            PcmConverter.toFloatInShortUnits(buffer, bytesPerSample, 2, 1, 1, expected.length - 1, right, 0);
+
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], left[i]);
+            }
+            for (int i = 1; i < expected.length; i++) {
+                assertEquals((short) -expected[i], right[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    void deinterleavesAndPacksForTheRealFFT() {
+        final byte[] bytes = {1, 0, 2, 0, 3, 0, (byte) 0xFF, (byte) 0xFF, 5, 0, 6, 0};
+        final short[][] channels = new short[2][3];
+        PcmConverter.deinterleave16(bytes, 3, channels);
+        assertArrayEquals(new short[]{1, 3, 5}, channels[0]);
+        assertArrayEquals(new short[]{2, -1, 6}, channels[1]);
+
+        final double[] even = new double[3];
+        final double[] odd = new double[3];
+        PcmConverter.toDoubleEvenOdd(new short[]{1, 2, 3}, 0, 3, 0.5, null, even, odd);
+        assertArrayEquals(new double[]{0.5, 1.5, 0}, even);
+        assertArrayEquals(new double[]{1, 0, 0}, odd);
+    }
+
+    @Test
+    void vectorKernelsGiveTheScalarResults() {
+        // the build runs the tests with the module, the kernels are then used
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), PcmConverter.isVectorized());
+        final Random random = new Random(42);
+        final short[] samples = new short[5000];
+        final ByteBuffer bytes = ByteBuffer.allocate(2 * samples.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) random.nextInt();
+            bytes.putShort(samples[i]);
+        }
+        // whole vectors and a tail
+        for (final int length : new int[]{4096, 4093, 37}) {
+            final float[] floats = new float[length];
+            PcmConverter.toFloatInShortUnits(bytes, 2, 1, 0, 3, length, floats, 0);
+            final short[] mono = new short[length];
+            PcmConverter.deinterleave16(bytes.array(), length, new short[][]{mono});
+            for (int i = 0; i < length; i++) {
+                assertEquals(samples[3 + i], floats[i]);
+                assertEquals(samples[i], mono[i]);
+            }
+        }
+    }
+
+    private static void put(final ByteBuffer buffer, final short value, final int bytesPerSample) {
+        final int scaled = value << (8 * (bytesPerSample - 2));
+        for (int b = 0; b < bytesPerSample; b++) {
+            buffer.put((byte) (scaled >> (8 * b)));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package stream.reader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReSamplerTest {
+
+    private static final float SOURCE_RATE = 44100;
+    private static final float TARGET_RATE = 12177.8f;
+
+    @Test
+    void keepsSineFrequencyAndAmplitude() {
+        final double frequency = 440;
+        final float[] input = sine(frequency, SOURCE_RATE, 44100);
+        final float[] output = resample(new ReSampler(SOURCE_RATE, TARGET_RATE, ReSampler.Quality.HIGH), input, input.length);
+
+        assertEquals(Math.ceil(input.length * TARGET_RATE / SOURCE_RATE), output.length, 1);
+        // skip the filter warm up at both ends
+        double error = 0;
+        for (int i = 200; i < output.length - 200; i++) {
+            final double expected = 1000 * Math.sin(2 * Math.PI * frequency * i / TARGET_RATE);
+            error = Math.max(error, Math.abs(expected - output[i]));
+        }
+        assertEquals(0, error, 5);
+    }
+
+    @Test
+    void outputDoesNotDependOnBlockSize() {
+        final float[] input = sine(1000, SOURCE_RATE, 20000);
+        final float[] whole = resample(new ReSampler(SOURCE_RATE, TARGET_RATE), input, input.length);
+        final float[] blocks = resample(new ReSampler(SOURCE_RATE, TARGET_RATE), input, 37);
+
+        assertArrayEquals(whole, blocks);
+    }
+
+    @Test
+    void upsamplingKeepsDcLevel() {
+        final float[] input = new float[2000];
+        Arrays.fill(input, 500);
+        final float[] output = resample(new ReSampler(22050, 28672, ReSampler.Quality.LOW), input, 256);
+
+        for (int i = 100; i < output.length - 100; i++) {
+            assertEquals(500, output[i], 2);
+        }
+    }
+
+    private static float[] resample(final ReSampler reSampler, final float[] input, final int blockSize) {
+        final float[] output = new float[reSampler.maxOutput(input.length) + reSampler.maxOutput(blockSize)];
+        final float[] block = new float[blockSize];
+        int written = 0;
+        for (int position = 0; position < input.length; position += blockSize) {
+            final int length = Math.min(blockSize, input.length - position);
+            System.arraycopy(input, position, block, 0, length);
+            written += reSampler.process(block, 0, length, output, written);
+        }
+        written += reSampler.flush(output, written);
+        return Arrays.copyOf(output, written);
+    }
+
+    private static float[] sine(final double frequency, final float sampleRate, final int length) {
+        final float[] samples = new float[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = (float) (1000 * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+        }
+        return samples;
+    }
+}
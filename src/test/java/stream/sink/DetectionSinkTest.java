@@ -0,0 +1,93 @@
+package stream.sink;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DetectionSinkTest {
+
+    @Test
+    void textMatchesStringFormat() {
+        final Random random = new Random(42);
+        final StringBuilder line = new StringBuilder();
+        final double[] values = new double[]{0, -0.0, 1e-7, -1e-7, 0.5e-6, 2.5e-6, 123.4567895, 1e6, 3e9, Double.NaN};
+        for (final double value : values) {
+            line.setLength(0);
+            TextSink.appendFixed(line, value);
+            assertEquals(String.format(Locale.ROOT, "%f", value), line.toString());
+        }
+        for (int i = 0; i < 100_000; i++) {
+            final double value = i % 2 == 0 ? random.nextFloat() * 10 : random.nextDouble() * 5000;
+            line.setLength(0);
+            TextSink.appendFixed(line, value);
+            assertEquals(String.format(Locale.ROOT, "%f", value), line.toString());
+        }
+    }
+
+    @Test
+    void textIgnoresTheDefaultLocale() {
+        final Locale locale = Locale.getDefault();
+        Locale.setDefault(Locale.FRANCE);
+        try {
+            final StringBuilder line = new StringBuilder();
+            // the second value takes the String.format path
+            TextSink.appendFixed(line, 0.5);
+            line.append(' ');
+            TextSink.appendFixed(line, 3e9);
+            assertEquals("0.500000 3000000000.000000", line.toString());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    void writesEveryFormat() {
+        final Detection detection = new Detection(0.5f, "A2", 220.25, 150.5);
+        assertEquals("[0.500000] A2 (220.250000) 150.5" + System.lineSeparator(), write(SinkFormat.TEXT, detection));
+        assertEquals("start_time,note,frequency,power" + System.lineSeparator() + "0.5,A2,220.25,150.5" + System.lineSeparator(),
+                write(SinkFormat.CSV, detection));
+        assertEquals("{\"startTime\":0.5,\"note\":\"A2\",\"frequency\":220.25,\"power\":150.5}" + System.lineSeparator(),
+                write(SinkFormat.JSONL, detection));
+    }
+
+    @Test
+    void readsBackBinaryRecords() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DetectionSink sink = new BinarySink(bytes)) {
+            sink.accept(new Detection(0, "A1", 110, 120));
+            sink.accept(new Detection(0.25f, "B2", 246.9, 130));
+            sink.accept(new Detection(0.5f, "A1", 110, 140));
+        }
+        // magic, 3 records and the two note names
+        assertEquals(4 + 3 * 22 + 2 * 4, bytes.size());
+
+        try (final BinarySink.Reader reader = new BinarySink.Reader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Detection first = reader.read();
+            assertEquals("A1", first.getNote());
+            assertEquals(120, first.getPower());
+            final Detection second = reader.read();
+            assertEquals(0.25f, second.getStartTime());
+            assertEquals("B2", second.getNote());
+            assertEquals(246.9, second.getFrequency());
+            assertEquals("A1", reader.read().getNote());
+            assertNull(reader.read());
+        }
+    }
+
+    private static String write(final SinkFormat format, final Detection detection) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final DetectionSink sink = format.create(bytes)) {
+            sink.accept(detection);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,54 @@
+package stream.sink;
+
+import org.junit.jupiter.api.Test;
+import stream.model.Detection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReorderingSinkTest {
+
+    @Test
+    void passesOnDetectionsBehindTheWatermarkInOrder() {
+        final List<Detection> output = new ArrayList<>();
+        final ReorderingSink reorderingSink = new ReorderingSink(output::add);
+        reorderingSink.accept(new Detection(2, "A1", 110, 1));
+        reorderingSink.accept(new Detection(0, "B1", 123, 1));
+        reorderingSink.accept(new Detection(1, "C1", 65, 1));
+        reorderingSink.accept(new Detection(0, "A1", 110, 1));
+
+        reorderingSink.advance(1);
+        assertEquals(List.of("A1", "B1"), notes(output));
+        assertEquals(2, reorderingSink.getPending());
+
+        // a detection of the current watermark can still come
+        reorderingSink.accept(new Detection(1, "A2", 55, 1));
+        assertThrows(IllegalStateException.class, () -> reorderingSink.accept(new Detection(0.5f, "A1", 110, 1)));
+
+        reorderingSink.drain();
+        assertEquals(List.of("A1", "B1", "A2", "C1", "A1"), notes(output));
+        assertEquals(0, reorderingSink.getPending());
+    }
+
+    @Test
+    void keepsArrivalOrderOfEqualDetections() {
+        final List<Detection> output = new ArrayList<>();
+        final ReorderingSink reorderingSink = new ReorderingSink(output::add);
+        for (int i = 0; i < 10; i++) {
+            reorderingSink.accept(new Detection(0, "A1", 110, i));
+        }
+        reorderingSink.drain();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, output.get(i).getPower());
+        }
+    }
+
+    private static List<String> notes(final List<Detection> detections) {
+        final List<String> notes = new ArrayList<>();
+        detections.forEach(d -> notes.add(d.getNote()));
+        return notes;
+    }
+}